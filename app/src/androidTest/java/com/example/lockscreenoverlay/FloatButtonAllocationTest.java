@@ -0,0 +1,130 @@
+package com.example.lockscreenoverlay;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.os.Debug;
+import android.os.ParcelFileDescriptor;
+import android.provider.Settings;
+import android.util.Log;
+import android.view.Display;
+import android.view.View;
+import android.view.WindowManager;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Аллокации на устройстве при показе и скрытии плавающей кнопки: тот же путь, что у
+ * FloatButtonService (FloatButtonWindow, OverlayScheduler, настоящий WindowManager).
+ * Считаются объекты главного потока через Debug.startAllocCounting; сюда входит и работа
+ * WindowManager (ViewRootImpl на каждое добавление), поэтому результат — в logcat с тегом
+ * FloatButtonAllocation для сравнения до и после изменения, а проверяется только то,
+ * что View кнопки не создаётся заново.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FloatButtonAllocationTest {
+    private static final String TAG = "FloatButtonAllocation";
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 100;
+
+    private static final FloatButtonWindow.Host HOST = new FloatButtonWindow.Host() {
+        @Override
+        public void onInput(FloatButtonWindow window, long eventTimeMillis) {
+        }
+
+        @Override
+        public void onTap(FloatButtonWindow window, long eventTimeMillis) {
+        }
+
+        @Override
+        public void onAttached(FloatButtonWindow window, View view) {
+        }
+
+        @Override
+        public void onDetached(FloatButtonWindow window, View view) {
+        }
+    };
+
+    // Позиции не читаются и не пишутся на диск
+    private static final PositionStore.Backend NO_DISK = new PositionStore.Backend() {
+        @Override
+        public Map<String, Long> readAll() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public void writeAll(Map<String, Long> positions) {
+        }
+    };
+
+    // Разрешение на окна поверх других приложений для пакета под тестом
+    private static void grantOverlayPermission(Instrumentation instrumentation, Context context) throws IOException {
+        ParcelFileDescriptor output = instrumentation.getUiAutomation().executeShellCommand(
+                "appops set " + context.getPackageName() + " SYSTEM_ALERT_WINDOW allow");
+        // Команда выполнится, когда её вывод прочитан до конца
+        try (FileInputStream in = new ParcelFileDescriptor.AutoCloseInputStream(output)) {
+            byte[] buffer = new byte[256];
+            while (in.read(buffer) != -1) {
+            }
+        }
+    }
+
+    private static void cycle(FloatButtonWindow button, OverlayScheduler<View> scheduler) {
+        button.attach();
+        scheduler.flush();
+        button.detach();
+        scheduler.flush();
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void showHideDoesNotRecreateTheButton() throws IOException {
+        final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        final Context context = instrumentation.getTargetContext();
+        grantOverlayPermission(instrumentation, context);
+        Assume.assumeTrue("no overlay permission", Settings.canDrawOverlays(context));
+
+        final long[] result = new long[4];
+        // Окна добавляются и убираются на главном потоке, как в сервисе
+        instrumentation.runOnMainSync(() -> {
+            OverlayScheduler<View> scheduler = new OverlayScheduler<>();
+            scheduler.registerDisplay(Display.DEFAULT_DISPLAY,
+                    new WindowManagerOps((WindowManager) context.getSystemService(Context.WINDOW_SERVICE)));
+            PositionStore positionStore = new PositionStore(NO_DISK,
+                    Executors.newSingleThreadScheduledExecutor(), Runnable::run);
+            FloatButtonWindow button = new FloatButtonWindow(Display.DEFAULT_DISPLAY, context, scheduler,
+                    positionStore, HOST);
+            for (int i = 0; i < WARMUP; i++) cycle(button, scheduler);
+
+            Debug.resetThreadAllocCount();
+            Debug.resetThreadAllocSize();
+            Debug.startAllocCounting();
+            for (int i = 0; i < ITERATIONS; i++) cycle(button, scheduler);
+            Debug.stopAllocCounting();
+            result[0] = Debug.getThreadAllocCount();
+            result[1] = Debug.getThreadAllocSize();
+            result[2] = button.getCreateCount();
+            result[3] = button.getAttachCount();
+            button.release();
+            scheduler.flush();
+            positionStore.close();
+        });
+
+        Log.i(TAG, "show/hide: " + result[0] / ITERATIONS + " objects, "
+                + result[1] / ITERATIONS + " bytes per cycle");
+        assertEquals(1, result[2]);
+        assertEquals(WARMUP + ITERATIONS, result[3]);
+    }
+}
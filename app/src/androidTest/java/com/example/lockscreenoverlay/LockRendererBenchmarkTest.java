@@ -0,0 +1,255 @@
+package com.example.lockscreenoverlay;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.util.DisplayMetrics;
+import android.util.Log;
+import android.view.View;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Сравнение способов отрисовки экрана блокировки на устройстве: разметка layout_lock_screen.xml
+ * против LockCanvasView. Замеряются создание содержимого, measure + layout и программная отрисовка
+ * кадра, а также перерисовка (overdraw) — сколько экранов пикселей закрашивают примитивы кадра.
+ * Результаты — в logcat с тегом LockRendererBenchmark.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LockRendererBenchmarkTest {
+    private static final String TAG = "LockRendererBenchmark";
+    private static final int WARMUP = 30;
+    private static final int ITERATIONS = 200;
+
+    private static final LockOverlayWindow.Host HOST = new LockOverlayWindow.Host() {
+        @Override
+        public void onUserActivity() {
+        }
+
+        @Override
+        public void onSwipeInput(long eventTimeMillis) {
+        }
+
+        @Override
+        public void onSwipeCancelled() {
+        }
+
+        @Override
+        public void onUnlockGesture() {
+        }
+
+        @Override
+        public void onCloseClicked() {
+        }
+
+        @Override
+        public void onFrameDrawn(LockOverlayWindow window) {
+        }
+    };
+
+    private static final class Result {
+        long createNanos;       // Медиана: создание окна с содержимым
+        long layoutNanos;       // Медиана: measure + layout
+        long drawNanos;         // Медиана: отрисовка в Bitmap
+        float overdraw;         // Закрашенная площадь в экранах
+    }
+
+    // Холст, который суммирует площадь всех закрашенных примитивов с учётом матрицы и клипа.
+    // Текст не учитывается (одинаков в обоих вариантах), обводка — по охватывающему прямоугольнику.
+    private static final class OverdrawCanvas extends Canvas {
+        private final RectF mapped = new RectF();
+        private final Rect clip = new Rect();
+        private final RectF clipRect = new RectF();
+        private final RectF bounds = new RectF();
+        double area = 0;
+
+        OverdrawCanvas(Bitmap bitmap) {
+            super(bitmap);
+        }
+
+        private void count(float left, float top, float right, float bottom) {
+            mapped.set(left, top, right, bottom);
+            getMatrix().mapRect(mapped);
+            getClipBounds(clip);
+            // Клип уже в локальных координатах — переводим его тем же преобразованием
+            clipRect.set(clip);
+            getMatrix().mapRect(clipRect);
+            if (mapped.intersect(clipRect)) {
+                area += (double) mapped.width() * mapped.height();
+            }
+        }
+
+        @Override
+        public void drawColor(int color) {
+            getClipBounds(clip);
+            count(clip.left, clip.top, clip.right, clip.bottom);
+            super.drawColor(color);
+        }
+
+        @Override
+        public void drawPaint(Paint paint) {
+            getClipBounds(clip);
+            count(clip.left, clip.top, clip.right, clip.bottom);
+            super.drawPaint(paint);
+        }
+
+        @Override
+        public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+            count(left, top, right, bottom);
+            super.drawRect(left, top, right, bottom, paint);
+        }
+
+        @Override
+        public void drawRect(RectF rect, Paint paint) {
+            count(rect.left, rect.top, rect.right, rect.bottom);
+            super.drawRect(rect, paint);
+        }
+
+        @Override
+        public void drawRect(Rect rect, Paint paint) {
+            count(rect.left, rect.top, rect.right, rect.bottom);
+            super.drawRect(rect, paint);
+        }
+
+        @Override
+        public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+            count(rect.left, rect.top, rect.right, rect.bottom);
+            super.drawRoundRect(rect, rx, ry, paint);
+        }
+
+        @Override
+        public void drawRoundRect(float left, float top, float right, float bottom, float rx, float ry,
+                                  Paint paint) {
+            count(left, top, right, bottom);
+            super.drawRoundRect(left, top, right, bottom, rx, ry, paint);
+        }
+
+        @Override
+        public void drawOval(RectF oval, Paint paint) {
+            count(oval.left, oval.top, oval.right, oval.bottom);
+            super.drawOval(oval, paint);
+        }
+
+        @Override
+        public void drawOval(float left, float top, float right, float bottom, Paint paint) {
+            count(left, top, right, bottom);
+            super.drawOval(left, top, right, bottom, paint);
+        }
+
+        @Override
+        public void drawCircle(float cx, float cy, float radius, Paint paint) {
+            count(cx - radius, cy - radius, cx + radius, cy + radius);
+            super.drawCircle(cx, cy, radius, paint);
+        }
+
+        @Override
+        public void drawPath(Path path, Paint paint) {
+            path.computeBounds(bounds, true);
+            count(bounds.left, bounds.top, bounds.right, bounds.bottom);
+            super.drawPath(path, paint);
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+            count(dst.left, dst.top, dst.right, dst.bottom);
+            super.drawBitmap(bitmap, src, dst, paint);
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+            count(dst.left, dst.top, dst.right, dst.bottom);
+            super.drawBitmap(bitmap, src, dst, paint);
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static void layout(View view, int width, int height) {
+        view.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, width, height);
+    }
+
+    private static Result measure(Context context, LockProfile.Renderer renderer) {
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        int width = metrics.widthPixels;
+        int height = metrics.heightPixels;
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        long[] create = new long[ITERATIONS];
+        long[] layout = new long[ITERATIONS];
+        long[] draw = new long[ITERATIONS];
+        for (int i = -WARMUP; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            LockOverlayWindow window = new LockOverlayWindow(context, 0, renderer, HOST);
+            View view = window.getView();
+            long created = System.nanoTime();
+            layout(view, width, height);
+            long laidOut = System.nanoTime();
+            view.setVisibility(View.VISIBLE);
+            view.draw(canvas);
+            long drawn = System.nanoTime();
+            if (i >= 0) {
+                create[i] = created - start;
+                layout[i] = laidOut - created;
+                draw[i] = drawn - laidOut;
+            }
+        }
+
+        LockOverlayWindow window = new LockOverlayWindow(context, 0, renderer, HOST);
+        View view = window.getView();
+        layout(view, width, height);
+        view.setVisibility(View.VISIBLE);
+        OverdrawCanvas overdrawCanvas = new OverdrawCanvas(bitmap);
+        view.draw(overdrawCanvas);
+        bitmap.recycle();
+
+        Result result = new Result();
+        result.createNanos = median(create);
+        result.layoutNanos = median(layout);
+        result.drawNanos = median(draw);
+        result.overdraw = (float) (overdrawCanvas.area / ((double) width * height));
+        Log.i(TAG, renderer + ": create " + result.createNanos / 1000 + " us, layout "
+                + result.layoutNanos / 1000 + " us, draw " + result.drawNanos / 1000
+                + " us, overdraw " + result.overdraw + "x");
+        return result;
+    }
+
+    @Test
+    public void canvasRendererIsCheaperThanLayout() {
+        final Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        final Result[] results = new Result[2];
+        // View создаются и размечаются на главном потоке, как в LockOverlayController
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            results[0] = measure(context, LockProfile.Renderer.LAYOUT);
+            results[1] = measure(context, LockProfile.Renderer.CANVAS);
+        });
+        Result layout = results[0];
+        Result canvas = results[1];
+        // Площадь закраски детерминирована: рисуемая View не добавляет слоёв к разметке
+        // (допуск — на разницу высоты кнопки закрытия и охвата стрелки)
+        assertTrue("overdraw layout " + layout.overdraw + " canvas " + canvas.overdraw,
+                canvas.overdraw <= layout.overdraw * 1.02f);
+        // Одна View без инфлейта и ConstraintLayout должна создаваться и размечаться быстрее
+        assertTrue("create layout " + layout.createNanos + " canvas " + canvas.createNanos,
+                canvas.createNanos < layout.createNanos);
+        assertTrue("layout layout " + layout.layoutNanos + " canvas " + canvas.layoutNanos,
+                canvas.layoutNanos < layout.layoutNanos);
+    }
+}
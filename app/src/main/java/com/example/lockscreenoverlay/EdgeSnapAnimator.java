@@ -0,0 +1,108 @@
+package com.example.lockscreenoverlay;
+
+// Для шага анимации в такт кадрам дисплея
+import android.view.Choreographer;
+// Параметры окна, которые двигает анимация
+import android.view.WindowManager;
+
+// Докатывает плавающую кнопку до края после отпускания. Шаг физики выполняется один раз за кадр
+// Choreographer, и каждый кадр отправляет в WindowManager не больше одного updateViewLayout
+// через FrameAlignedLayoutUpdater. О конечной позиции сообщает один раз — когда кнопка остановилась.
+public final class EdgeSnapAnimator implements Choreographer.FrameCallback {
+
+    // Кнопка остановилась в конечной позиции
+    public interface RestListener {
+        void onRest(int x, int y);
+    }
+
+    private final EdgeSnapPhysics physics;
+    private final FrameAlignedLayoutUpdater layoutUpdater;
+    private WindowManager.LayoutParams params;  // Параметры окна кнопки (те же, что у layoutUpdater)
+    private RestListener restListener;
+    private boolean scheduled = false;          // Кадровый callback уже запрошен
+    private long lastFrameNanos = 0;            // Время предыдущего шага
+
+    private long glideCount = 0;    // Сколько раз кнопка докатывалась до края
+    private long frameCount = 0;    // Сколько кадров заняли все докатывания
+
+    public EdgeSnapAnimator(float density, FrameAlignedLayoutUpdater layoutUpdater) {
+        this.physics = new EdgeSnapPhysics(density);
+        this.layoutUpdater = layoutUpdater;
+    }
+
+    public void attach(WindowManager.LayoutParams params) {
+        cancel();
+        this.params = params;
+    }
+
+    public void setRestListener(RestListener restListener) {
+        this.restListener = restListener;
+    }
+
+    // Границы для левого верхнего угла кнопки на текущем экране
+    public void setBounds(int displayWidth, int displayHeight, int buttonWidth, int buttonHeight) {
+        physics.setBounds(0, displayWidth - buttonWidth, 0, displayHeight - buttonHeight);
+    }
+
+    // Возвращает кнопку в пределы экрана (например, после поворота); true — позиция изменилась
+    public boolean clampToBounds() {
+        if (params == null) return false;
+        int x = physics.clampX(params.x);
+        int y = physics.clampY(params.y);
+        if (x == params.x && y == params.y) return false;
+        params.x = x;
+        params.y = y;
+        return true;
+    }
+
+    public void start(float velocityX, float velocityY) {
+        if (params == null) return;
+        physics.start(params.x, params.y, velocityX, velocityY);
+        glideCount++;
+        lastFrameNanos = System.nanoTime();
+        if (!scheduled) {
+            scheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    // Остановка без сообщения о конечной позиции (палец снова на кнопке, кнопка убрана)
+    public void cancel() {
+        physics.cancel();
+        if (scheduled) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            scheduled = false;
+        }
+    }
+
+    public boolean isRunning() {
+        return physics.isRunning();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        scheduled = false;
+        float dtSeconds = Math.max(0L, frameTimeNanos - lastFrameNanos) / 1_000_000_000f;
+        lastFrameNanos = frameTimeNanos;
+        boolean moving = physics.step(dtSeconds);
+        frameCount++;
+        params.x = physics.getX();
+        params.y = physics.getY();
+        // Шаг уже выровнен по кадру: позиция уходит в WindowManager сразу, без второго кадрового callback
+        layoutUpdater.applyNow();
+        if (moving) {
+            scheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        } else if (restListener != null) {
+            restListener.onRest(params.x, params.y);
+        }
+    }
+
+    public long getGlideCount() {
+        return glideCount;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+}
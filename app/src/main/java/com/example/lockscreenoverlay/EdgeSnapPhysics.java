@@ -0,0 +1,123 @@
+package com.example.lockscreenoverlay;
+
+// Физика движения плавающей кнопки после отпускания без зависимостей от Android.
+// По горизонтали кнопка пружиной притягивается к ближайшему краю экрана (с учётом броска),
+// по вертикали скользит с замедлением; по обеим осям останавливается у границ экрана.
+// Во время анимации не создаёт объектов.
+public final class EdgeSnapPhysics {
+    // Коэффициент замедления скольжения, 1/с: скорость падает в e раз за 1/FRICTION секунды
+    public static final float FRICTION = 4.2f;
+    // Жёсткость пружины к краю, 1/с²; затухание критическое — без колебаний у края
+    public static final float SPRING_STIFFNESS = 200f;
+    // Скорость, ниже которой движение считается законченным, dp/с
+    public static final float REST_VELOCITY_DP = 30f;
+    // Шаг интегрирования: длинный кадр разбивается на шаги не длиннее этого
+    private static final float MAX_STEP_SECONDS = 0.008f;
+    private static final float REST_DISTANCE_PX = 0.5f;
+
+    private final float restVelocityPx;     // Порог остановки, px/с
+    private final float damping;            // Критическое затухание пружины, 1/с
+
+    private int minX, maxX, minY, maxY;     // Допустимые координаты кнопки на текущем экране
+    private float x, y;                     // Текущее положение
+    private float velocityX, velocityY;     // Текущая скорость, px/с
+    private float targetX;                  // Край, к которому притягивается кнопка
+    private boolean running = false;
+
+    public EdgeSnapPhysics(float density) {
+        this.restVelocityPx = REST_VELOCITY_DP * density;
+        this.damping = 2f * (float) Math.sqrt(SPRING_STIFFNESS);
+    }
+
+    // Границы задаются по размеру экрана и кнопки; max меньше min (кнопка больше экрана) сводится к min
+    public void setBounds(int minX, int maxX, int minY, int maxY) {
+        this.minX = minX;
+        this.maxX = Math.max(minX, maxX);
+        this.minY = minY;
+        this.maxY = Math.max(minY, maxY);
+    }
+
+    public static int clamp(int value, int min, int max) {
+        return value < min ? min : (value > max ? max : value);
+    }
+
+    public int clampX(int value) {
+        return clamp(value, minX, maxX);
+    }
+
+    public int clampY(int value) {
+        return clamp(value, minY, maxY);
+    }
+
+    // Ближайший край с учётом того, куда кнопка докатилась бы по инерции
+    public int snapTargetX(float fromX, float withVelocityX) {
+        float landingX = fromX + withVelocityX / FRICTION;
+        return landingX < (minX + maxX) / 2f ? minX : maxX;
+    }
+
+    // Начало движения с позиции отпускания и скоростью пальца
+    public void start(int fromX, int fromY, float withVelocityX, float withVelocityY) {
+        x = fromX;
+        y = clampY(fromY);
+        velocityX = withVelocityX;
+        velocityY = fromY == y ? withVelocityY : 0f;
+        targetX = snapTargetX(fromX, withVelocityX);
+        running = true;
+    }
+
+    public void cancel() {
+        running = false;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Продвигает движение на dtSeconds; возвращает true, пока кнопка ещё движется
+    public boolean step(float dtSeconds) {
+        if (!running) return false;
+        while (dtSeconds > 0f) {
+            float dt = Math.min(dtSeconds, MAX_STEP_SECONDS);
+            dtSeconds -= dt;
+            // Пружина к краю (полунеявный Эйлер: сначала скорость, потом положение)
+            float accelX = SPRING_STIFFNESS * (targetX - x) - damping * velocityX;
+            velocityX += accelX * dt;
+            x += velocityX * dt;
+            // Сильный бросок не выносит кнопку за край: у края она останавливается, а не пролетает
+            if (x < minX) {
+                x = minX;
+                velocityX = 0f;
+            } else if (x > maxX) {
+                x = maxX;
+                velocityX = 0f;
+            }
+            // Скольжение с замедлением, у границы экрана скорость гасится
+            velocityY -= velocityY * FRICTION * dt;
+            y += velocityY * dt;
+            if (y < minY) {
+                y = minY;
+                velocityY = 0f;
+            } else if (y > maxY) {
+                y = maxY;
+                velocityY = 0f;
+            }
+        }
+        if (Math.abs(targetX - x) < REST_DISTANCE_PX
+                && Math.abs(velocityX) < restVelocityPx
+                && Math.abs(velocityY) < restVelocityPx) {
+            x = targetX;
+            velocityX = 0f;
+            velocityY = 0f;
+            running = false;
+        }
+        return running;
+    }
+
+    public int getX() {
+        return Math.round(x);
+    }
+
+    public int getY() {
+        return Math.round(y);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.lockscreenoverlay;
+
+// Чтение файла профилей
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+// Профили из локального файла key=value в UTF-8 (тексты на русском пишутся как есть).
+// Версия — время изменения и размер файла: повторный разбор нужен только после правки.
+public final class FileProfileSource implements LockProfileStore.Source {
+    public static final String FILE_NAME = "lock_profiles.properties";
+
+    private final File file;
+
+    public FileProfileSource(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public long version() {
+        if (!file.isFile()) return LockProfileStore.NO_SOURCE;
+        return (file.lastModified() * 31 + file.length()) & Long.MAX_VALUE;
+    }
+
+    @Override
+    public Properties read() throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return properties;
+    }
+}
@@ -1,79 +1,245 @@
 package com.example.lockscreenoverlay;
 
+// Для уведомления foreground-сервиса
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
 // Импортируем базовый класс Service для создания сервиса
 import android.app.Service;
-// Импортируем Intent для запуска активностей и сервисов
-import android.content.BroadcastReceiver;
+// Контекст дисплея для окна кнопки
 import android.content.Context;
+// Импортируем Intent для запуска активностей и сервисов
 import android.content.Intent;
-// Для задания формата пикселей окна оверлея
-import android.content.IntentFilter;
-import android.content.SharedPreferences;
-import android.graphics.PixelFormat;
+// Тип foreground-сервиса для Android 14+
+import android.content.pm.ServiceInfo;
+// Для определения текущей конфигурации экрана
+import android.content.res.Configuration;
 // Интерфейс для привязки сервиса (здесь не используется, возвращаем null)
 import android.os.Build;
+import android.os.Handler;
 import android.os.IBinder;
-// Для задания расположения окна на экране
-import android.view.Gravity;
-// Для создания View из XML разметки
-import android.view.LayoutInflater;
-// Для обработки касаний на View
-import android.view.MotionEvent;
+import android.os.Looper;
+// Для замера времени от старта процесса
+import android.os.Process;
+import android.os.SystemClock;
+// Для вывода счётчиков перетаскивания в лог
+import android.util.Log;
+// Кнопки по идентификатору дисплея
+import android.util.SparseArray;
+// Основной дисплей: на нём считаются кадры и время запуска
+import android.view.Display;
 // Базовый класс для работы с элементами окна
 import android.view.View;
-// Для добавления/обновления View в системном окне
-import android.view.WindowManager;
+// Для отслеживания первого кадра кнопки
+import android.view.ViewTreeObserver;
 // Для вывода кратких уведомлений Toast
 import android.widget.Toast;
 // Аннотация для Nullable возвращаемого значения
 import androidx.annotation.Nullable;
-import android.graphics.Point;  // импорт для возвращаемой координаты
+// Для вывода статистики через dumpsys
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+// Фоновый поток для сохранения позиции
+import java.util.concurrent.Executors;
 
 public class FloatButtonService extends Service {
-    private WindowManager windowManager;           // Менеджер управления окнами
-    private View floatButtonView;                   // Самая кнопка — View из layout_float_button
-    private WindowManager.LayoutParams params;     // Параметры расположения кнопки и поведения окна
+    private OverlayDisplays displays;              // Публичные дисплеи и общий планировщик окон
+    private OverlayScheduler<View> scheduler;      // Все добавления/удаления/перемещения кнопок идут через него
+    private final SparseArray<FloatButtonWindow> buttons = new SparseArray<>();  // Кнопка на каждом дисплее
+    private boolean buttonsShown = false;          // Кнопки должны быть на экране (состояние UNLOCKED)
+    private boolean toastShown = false;            // Сообщение о добавлении уже показывалось
+    private OverlayFrameMonitor frameMonitor;      // Статистика кадров и задержки перетаскивания (основной дисплей)
 
-    private static final String PREFS_NAME = "floating_button_prefs";
-    private static final String KEY_X = "button_x";
-    private static final String KEY_Y = "button_y";
+    private static final String TAG = "FloatButton";
+    // Закрытие приложения из уведомления foreground-сервиса
+    public static final String ACTION_CLOSE = "com.example.lockscreenoverlay.ACTION_CLOSE";
+    // Включение и выключение foreground-режима с уведомлением (EXTRA_ENABLED)
+    public static final String ACTION_SET_FOREGROUND = "com.example.lockscreenoverlay.ACTION_SET_FOREGROUND";
+    public static final String EXTRA_ENABLED = "enabled";
+    private static final String CHANNEL_ID = "overlay";
+    private static final int NOTIFICATION_ID = 1;
+    // Повтор перехода в foreground, если система не разрешила его до появления окна на экране
+    private static final long FOREGROUND_RETRY_DELAY_MS = 1000;
+    private static boolean running = false;        // Сервис создан и ещё не уничтожен
 
-    private void saveCoordinates(int x, int y) {
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        prefs.edit()
-                .putInt(KEY_X, x)
-                .putInt(KEY_Y, y)
-                .apply();
-    }
+    private PositionStore positionStore;           // Позиции кнопок в памяти, диск — только в фоне
+    private boolean parkedForScreenOff = false;    // Окна кнопок сняты на время выключенного дисплея
+    private OverlayStateStore stateStore;          // Последнее состояние и режим уведомления, диск — только в фоне
+    private boolean foreground = false;            // startForeground выполнен
+    private boolean positionsRestored = false;     // Позиции загружены и применены к кнопкам
+    private boolean stateRestored = false;         // Последнее состояние загружено и применено
+    private Handler mainHandler;
 
-    private Point loadCoordinates() {
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        int x = prefs.getInt(KEY_X, 0);          // Значения по умолчанию
-        int y = prefs.getInt(KEY_Y, 100);
-        return new Point(x, y);
-    }
+    // Кнопка на основном дисплее считает кадры и время запуска; нажатие на любой блокирует все дисплеи
+    private final FloatButtonWindow.Host buttonHost = new FloatButtonWindow.Host() {
+        @Override
+        public void onInput(FloatButtonWindow window, long eventTimeMillis) {
+            if (window.getDisplayId() == Display.DEFAULT_DISPLAY) {
+                frameMonitor.markInput(eventTimeMillis);
+            }
+        }
 
-    private BroadcastReceiver showHideReceiver = new BroadcastReceiver() {
         @Override
-        public void onReceive(Context context, Intent intent) {
-            String action = intent.getAction();
-            if ("ACTION_HIDE_FLOAT_BUTTON".equals(action)) {
-                if (floatButtonView != null) {
-                    try {
-                        windowManager.removeView(floatButtonView);
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                    floatButtonView = null;
-                }
-            } else if ("ACTION_SHOW_FLOAT_BUTTON".equals(action)) {
-                if (floatButtonView == null) {
-                    createAndAddFloatButton();
+        public void onTap(FloatButtonWindow window, long eventTimeMillis) {
+            // Запоминаем время нажатия для замера задержки до первого кадра блокировки
+            LockOverlayController.get(FloatButtonService.this).markLockRequested(eventTimeMillis);
+            // Блокируем экран напрямую, без обращения к системе
+            OverlayStateMachine.get().moveTo(OverlayStateMachine.State.LOCKED);
+        }
+
+        // Подписки на кадры окна живут только пока окно добавлено: у нового ViewRootImpl свой ViewTreeObserver
+        @Override
+        public void onAttached(FloatButtonWindow window, View view) {
+            // Окно на экране — система разрешает foreground-сервис, если раньше отказала
+            startForegroundIfEnabled();
+            if (!toastShown) {
+                // Сообщение — только при первом показе, а не после каждой разблокировки
+                toastShown = true;
+                Toast.makeText(getApplicationContext(), "Кнопка блокировки добавлена", Toast.LENGTH_SHORT).show();
+            }
+            if (window.getDisplayId() != Display.DEFAULT_DISPLAY) return;
+            frameMonitor.attach(view);
+            StartupTimeline timeline = StartupTimeline.get();
+            timeline.mark(StartupTimeline.Milestone.BUTTON_ATTACHED, SystemClock.uptimeMillis());
+            // Первый кадр нужен только для замера запуска
+            if (!timeline.has(StartupTimeline.Milestone.BUTTON_DRAWN)) {
+                view.getViewTreeObserver().addOnDrawListener(firstDrawListener);
+            }
+        }
+
+        @Override
+        public void onDetached(FloatButtonWindow window, View view) {
+            if (window.getDisplayId() != Display.DEFAULT_DISPLAY) return;
+            view.getViewTreeObserver().removeOnDrawListener(firstDrawListener);
+            frameMonitor.detach(view);
+        }
+    };
+
+    // Каждый публичный дисплей получает свою кнопку; её окно готовится сразу, добавляется — когда нужно.
+    // Операции с окнами выполняет общий проход OverlayDisplays после рассылки
+    private final OverlayDisplays.Listener displaysListener = new OverlayDisplays.Listener() {
+        @Override
+        public void onDisplayAdded(int displayId, Context displayContext) {
+            FloatButtonWindow window = new FloatButtonWindow(displayId, displayContext, scheduler,
+                    positionStore, buttonHost);
+            buttons.put(displayId, window);
+            if (displayId == Display.DEFAULT_DISPLAY) {
+                // Сдвиг окна не перерисовывает кнопку, поэтому задержку перетаскивания считаем до отправки позиции
+                window.getLayoutUpdater().setAppliedListener(frameMonitor::onContentUpdated);
+            }
+            if (positionStore.isLoaded()) {
+                window.applyStoredPosition();
+            }
+            if (buttonsShown && !parkedForScreenOff) {
+                window.attach();
+            }
+        }
+
+        @Override
+        public void onDisplayRemoved(int displayId) {
+            FloatButtonWindow window = buttons.get(displayId);
+            if (window == null) return;
+            buttons.remove(displayId);
+            // Окно отключённого дисплея система убрала сама; удаление отбросит планировщик
+            window.release();
+        }
+    };
+
+    // Реакция на смену состояния: кнопки скрываются на время блокировки и возвращаются после неё.
+    // Переход рассылается пакетом, поэтому скрытие кнопок и показ экрана блокировки — один проход
+    private final OverlayStateMachine.Listener stateListener = new OverlayStateMachine.Listener() {
+        @Override
+        public void onStateChanged(OverlayStateMachine.State from, OverlayStateMachine.State to) {
+            // Запоминаем состояние, чтобы восстановить его после перезапуска процесса системой;
+            // на диск оно попадёт в фоне одной отложенной записью
+            stateStore.setLastState(to);
+            if (to == OverlayStateMachine.State.LOCKED) {
+                removeFloatButton();
+            } else if (to == OverlayStateMachine.State.UNLOCKED) {
+                showFloatButton();
+            } else if (to == OverlayStateMachine.State.CLOSED) {
+                stopSelf();
+            }
+        }
+    };
+
+    // Пока дисплей выключен, окна кнопок сняты, а View и параметры сохранены для мгновенного возврата
+    private final ScreenStateMonitor.Listener screenListener = new ScreenStateMonitor.Listener() {
+        @Override
+        public void onScreenStateChanged(boolean interactive) {
+            if (!interactive) {
+                if (buttonsShown && !parkedForScreenOff) {
+                    detachButtons();
+                    parkedForScreenOff = true;
                 }
+            } else if (parkedForScreenOff) {
+                parkedForScreenOff = false;
+                attachButtons();
             }
         }
     };
 
+    // Кнопки показываются, если экран включён; иначе — при его включении
+    private void showFloatButton() {
+        if (buttonsShown) return;
+        buttonsShown = true;
+        if (!ScreenStateMonitor.get(this).isInteractive()) {
+            parkedForScreenOff = true;
+            return;
+        }
+        // Сообщение о добавлении покажет onAttached, когда WindowManager примет окно
+        attachButtons();
+    }
+
+    private void removeFloatButton() {
+        buttonsShown = false;
+        if (parkedForScreenOff) {
+            parkedForScreenOff = false;
+            return;
+        }
+        detachButtons();
+    }
+
+    // Добавляет готовые окна кнопок на всех дисплеях одним проходом
+    private void attachButtons() {
+        for (int i = 0; i < buttons.size(); i++) {
+            buttons.valueAt(i).attach();
+        }
+        scheduler.flush();
+    }
+
+    // Снимает окна кнопок одним проходом; View, drawable и параметры остаются для следующего показа
+    private void detachButtons() {
+        for (int i = 0; i < buttons.size(); i++) {
+            buttons.valueAt(i).detach();
+        }
+        scheduler.flush();
+    }
+
+    private boolean anyButtonAttached() {
+        for (int i = 0; i < buttons.size(); i++) {
+            if (buttons.valueAt(i).isAttached()) return true;
+        }
+        return false;
+    }
+
+    // Позиции загружены в фоне — кнопки встают на свои места
+    private void applyStoredPositions() {
+        for (int i = 0; i < buttons.size(); i++) {
+            buttons.valueAt(i).applyStoredPosition();
+        }
+        positionsRestored = true;
+    }
+
+    // Фоновые загрузки завершены и их результат применён на главном потоке (для тестов)
+    boolean isRestored() {
+        return positionsRestored && stateRestored;
+    }
+
     @Nullable
     @Override
     public IBinder onBind(Intent intent) {
@@ -84,115 +250,233 @@ public class FloatButtonService extends Service {
     @Override
     public void onCreate() {
         super.onCreate();
-        windowManager = (WindowManager) getSystemService(WINDOW_SERVICE);
-        // Регистрируем BroadcastReceiver с учетом Android 14+
-        IntentFilter filter = new IntentFilter();
-        filter.addAction("ACTION_HIDE_FLOAT_BUTTON");
-        filter.addAction("ACTION_SHOW_FLOAT_BUTTON");
+        running = true;
+        // При перезапуске системой лаунчер не участвует — считаем от старта процесса
+        StartupTimeline timeline = StartupTimeline.get();
+        timeline.mark(StartupTimeline.Milestone.PROCESS_START, Process.getStartUptimeMillis());
+        timeline.mark(StartupTimeline.Milestone.SERVICE_CREATED, SystemClock.uptimeMillis());
+        frameMonitor = new OverlayFrameMonitor(this, "float button");
+        // Позиции загружаются один раз в фоне; до загрузки кнопки стоят в позиции по умолчанию
+        mainHandler = new Handler(Looper.getMainLooper());
+        positionStore = new PositionStore(new PreferencesPositionBackend(this),
+                Executors.newSingleThreadScheduledExecutor(), mainHandler::post);
+        // Окна кнопок на всех дисплеях готовятся сразу, даже если сервис стартует в заблокированном состоянии
+        displays = OverlayDisplays.get(this);
+        scheduler = displays.getScheduler();
+        displays.addListener(displaysListener);
+        positionStore.load(this::applyStoredPositions);
+        // Последнее состояние и режим уведомления тоже читаются в фоне; кнопка показывается после загрузки
+        stateStore = new OverlayStateStore(OverlayPrefs.stateBackend(this),
+                Executors.newSingleThreadScheduledExecutor(), mainHandler::post);
+        stateStore.load(this::restoreState);
+        // Подписываемся на внутрипроцессные изменения состояния вместо системных broadcast'ов
+        OverlayStateMachine.get().addListener(stateListener);
+        ScreenStateMonitor.get(this).addListener(screenListener);
+        // Сервис экрана блокировки запускается один раз и дальше живёт вместе с кнопкой
+        startService(new Intent(this, LockScreenService.class));
+    }
+
+    // Восстанавливает последнее состояние: если процесс убили во время блокировки, экран снова блокируется
+    private void restoreState(OverlayStateMachine.State lastState, boolean foregroundMode) {
+        // Сервис успели остановить, пока шла загрузка
+        if (!running) return;
+        OverlayStateMachine stateMachine = OverlayStateMachine.get();
+        stateMachine.moveTo(lastState == OverlayStateMachine.State.LOCKED
+                ? OverlayStateMachine.State.LOCKED
+                : OverlayStateMachine.State.UNLOCKED);
+        if (stateMachine.getState() == OverlayStateMachine.State.UNLOCKED) {
+            showFloatButton();
+        }
+        // Уведомление — после окна кнопки: при перезапуске системой в фоне видимое окно
+        // даёт право на foreground-сервис
+        startForegroundIfEnabled();
+        stateRestored = true;
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        if (intent != null && ACTION_CLOSE.equals(intent.getAction())) {
+            // Закрытие из уведомления: оба сервиса останавливаются, процесс не убивается
+            OverlayStateMachine.get().moveTo(OverlayStateMachine.State.CLOSED);
+            return START_NOT_STICKY;
+        }
+        if (intent != null && ACTION_SET_FOREGROUND.equals(intent.getAction())) {
+            setForegroundMode(intent.getBooleanExtra(EXTRA_ENABLED, true));
+        }
+        // После остановки системой сервис перезапускается, состояние восстанавливается в onCreate
+        return START_STICKY;
+    }
+
+    // Режим сохраняется между запусками; без него сервис работает без уведомления, но его проще выгрузить
+    private void setForegroundMode(boolean enabled) {
+        stateStore.setForegroundMode(enabled);
+        if (enabled) {
+            startForegroundIfEnabled();
+        } else if (foreground) {
+            mainHandler.removeCallbacks(foregroundRetry);
+            stopForeground(STOP_FOREGROUND_REMOVE);
+            foreground = false;
+        }
+    }
+
+    private final Runnable foregroundRetry = new Runnable() {
+        @Override
+        public void run() {
+            startForegroundIfEnabled();
+        }
+    };
+
+    // Переходит в foreground, если режим включён. Из фона (START_STICKY после выгрузки, targetSdk 35)
+    // система разрешает это, только пока на экране есть окно оверлея; иначе остаёмся обычным сервисом
+    // и пробуем снова, когда окно появится
+    private void startForegroundIfEnabled() {
+        if (foreground || !stateStore.isLoaded() || !stateStore.isForegroundMode()) return;
+        try {
+            startForegroundWithNotification();
+            foreground = true;
+            mainHandler.removeCallbacks(foregroundRetry);
+        } catch (IllegalStateException e) {
+            // ForegroundServiceStartNotAllowedException (API 31+) наследует IllegalStateException
+            Log.w(TAG, "startForeground not allowed yet: " + e.getMessage());
+            if (anyButtonAttached()) {
+                // Окно только что добавлено и ещё не показано — повторяем после первых кадров
+                mainHandler.removeCallbacks(foregroundRetry);
+                mainHandler.postDelayed(foregroundRetry, FOREGROUND_RETRY_DELAY_MS);
+            }
+        }
+    }
+
+    private void startForegroundWithNotification() {
+        NotificationManager notificationManager = (NotificationManager) getSystemService(NOTIFICATION_SERVICE);
+        // Канал с минимальной важностью: без звука и значка в строке состояния
+        NotificationChannel channel = new NotificationChannel(CHANNEL_ID, "Блокировка экрана",
+                NotificationManager.IMPORTANCE_MIN);
+        notificationManager.createNotificationChannel(channel);
+
+        Intent closeIntent = new Intent(this, FloatButtonService.class).setAction(ACTION_CLOSE);
+        PendingIntent closePending = PendingIntent.getService(this, 0, closeIntent,
+                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
+        // Скрывает уведомление; повторный запуск приложения из лаунчера возвращает его
+        Intent hideIntent = new Intent(this, FloatButtonService.class)
+                .setAction(ACTION_SET_FOREGROUND)
+                .putExtra(EXTRA_ENABLED, false);
+        PendingIntent hidePending = PendingIntent.getService(this, 1, hideIntent,
+                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
+        Notification notification = new Notification.Builder(this, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_lock)
+                .setContentTitle(getString(R.string.app_name))
+                .setContentText("Плавающая кнопка блокировки активна")
+                .setOngoing(true)
+                .addAction(new Notification.Action.Builder(null, "Закрыть", closePending).build())
+                .addAction(new Notification.Action.Builder(null, "Скрыть уведомление", hidePending).build())
+                .build();
         if (Build.VERSION.SDK_INT >= 34) {
-            registerReceiver(showHideReceiver, filter, Context.RECEIVER_NOT_EXPORTED);
+            startForeground(NOTIFICATION_ID, notification, ServiceInfo.FOREGROUND_SERVICE_TYPE_SPECIAL_USE);
         } else {
-            registerReceiver(showHideReceiver, filter);
-        }
-
-        createAndAddFloatButton();
-    }
-    private void createAndAddFloatButton() {
-        // Удаляем предыдущий экземпляр, если он есть
-        if (floatButtonView != null) {
-            try {
-                windowManager.removeView(floatButtonView);
-            } catch (Exception ignored) {}
-            floatButtonView = null;
-        }
-        // Загружаем View кнопки из XML разметки
-        floatButtonView = LayoutInflater.from(this).inflate(R.layout.layout_float_button, null);
-
-        // Создаем параметры окна для плавающей кнопки
-        Point coords = loadCoordinates();
-        params = new WindowManager.LayoutParams(
-                WindowManager.LayoutParams.WRAP_CONTENT,      // ширина — под размер контента
-                WindowManager.LayoutParams.WRAP_CONTENT,      // высота — под размер контента
-                WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY,  // тип окна — поверх других приложений
-                WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE,         // флаг, чтобы окно не перехватывало фокус
-                PixelFormat.TRANSLUCENT);                          // прозрачность пикселей окна
-        // Располагаем кнопку вверху слева экрана
-        params.gravity = Gravity.TOP | Gravity.START;
-        // используем загруженные координаты
-        params.x = coords.x;
-        params.y = coords.y;
-        // Добавляем floatButtonView в окно с заданными параметрами
-        windowManager.addView(floatButtonView, params);
-        // Показываем сообщение, что кнопка добавлена
-        Toast.makeText(getApplicationContext(), "Кнопка блокировки добавлена", Toast.LENGTH_SHORT).show();
-        // Устанавливаем слушатель касаний на кнопку для её перемещения и нажатия
-        floatButtonView.setOnTouchListener(new View.OnTouchListener() {
-            private int initialX;           // начальное положение по X
-            private int initialY;           // начальное положение по Y
-            private float initialTouchX;   // координата касания по X при нажатии
-            private float initialTouchY;   // координата касания по Y при нажатии
-            private boolean isMoving = false;   // признак, что пользователь двигает кнопку
-
-            @Override
-            public boolean onTouch(View v, MotionEvent event) {
-                switch(event.getAction()) {
-                    // Пользователь нажал на кнопку
-                    case MotionEvent.ACTION_DOWN:
-                        // Запоминаем текущие координаты кнопки
-                        initialX = params.x;
-                        initialY = params.y;
-                        // Запоминаем координаты касания
-                        initialTouchX = event.getRawX();
-                        initialTouchY = event.getRawY();
-                        // Сброс признака движения
-                        isMoving = false;
-                        return true;
-                    // Пользователь двигает палец по экрану
-                    case MotionEvent.ACTION_MOVE:
-                        int deltaX = (int) (event.getRawX() - initialTouchX);  // смещение по X
-                        int deltaY = (int) (event.getRawY() - initialTouchY);  // смещение по Y
-                        // Если смещение достаточно большое — считаем, что началось движение
-                        if (Math.abs(deltaX) > 5 || Math.abs(deltaY) > 5) {
-                            isMoving = true;
-                        }
-                        // Обновляем координаты кнопки с учётом смещения
-                        params.x = initialX + deltaX;
-                        params.y = initialY + deltaY;
-                        // Применяем изменения расположения кнопки на экране
-                        windowManager.updateViewLayout(floatButtonView, params);
-                        return true;
-                    // Пользователь отпустил палец
-                    case MotionEvent.ACTION_UP:
-                        //сохраняем новые координаты
-                        if (isMoving) {
-                            saveCoordinates(params.x, params.y);
-                        }
-                        // Если не было движения — значит, произошло обычное нажатие
-                        if (!isMoving) {
-                            // Запускаем сервис блокировки экрана
-                            Intent intent = new Intent(FloatButtonService.this, LockScreenService.class);
-                            startService(intent);
-                        }
-                        return true;
-                }
-                return false; // В остальных случаях не обрабатываем событие
+            startForeground(NOTIFICATION_ID, notification);
+        }
+    }
+    // Первый кадр кнопки завершает замер времени запуска
+    private final ViewTreeObserver.OnDrawListener firstDrawListener = new ViewTreeObserver.OnDrawListener() {
+        @Override
+        public void onDraw() {
+            StartupTimeline timeline = StartupTimeline.get();
+            if (timeline.mark(StartupTimeline.Milestone.BUTTON_DRAWN, SystemClock.uptimeMillis())) {
+                Log.i(TAG, timeline.report());
             }
-        });
+        }
+    };
+
+    // Запущен ли сервис — чтобы повторный запуск приложения не стартовал его ещё раз
+    public static boolean isRunning() {
+        return running;
+    }
+
+    // adb shell dumpsys activity service com.example.lockscreenoverlay/.FloatButtonService [reset | trace start | trace stop]
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        frameMonitor.dump(writer);
+        for (int i = 0; i < buttons.size(); i++) {
+            buttons.valueAt(i).dump(writer);
+        }
+        writer.println("  window manager passes: " + scheduler.getPassCount()
+                + ", operations: " + scheduler.getOpCount());
+        OverlayStateMachine stateMachine = OverlayStateMachine.get();
+        writer.print("  state: ");
+        writer.print(stateMachine.getState());
+        writer.print(" transitions=");
+        writer.print(stateMachine.getTransitionCount());
+        writer.print(" duplicates=");
+        writer.print(stateMachine.getDuplicateCount());
+        writer.print(" last dispatch=");
+        writer.print(stateMachine.getLastDispatchNanos() / 1000);
+        writer.println(" us");
+        writer.print("  ");
+        writer.println(StartupTimeline.get().report());
+        if (args != null && args.length > 0 && "reset".equals(args[0])) {
+            frameMonitor.reset();
+            writer.println("  stats reset");
+        }
+        if (args != null && args.length > 1 && "trace".equals(args[0])) {
+            dumpGestureTrace(writer, args[1]);
+        }
+    }
+
+    // Запись жестов для тестов воспроизведения; файл забирается через
+    // adb exec-out run-as com.example.lockscreenoverlay cat files/<имя>.gtr > app/src/test/resources/gestures/<имя>.gtr
+    private void dumpGestureTrace(PrintWriter writer, String command) {
+        GestureRecorder recorder = GestureRecorder.get();
+        if ("start".equals(command)) {
+            recorder.start(getResources().getDisplayMetrics().density, GestureRecorder.DEFAULT_CAPACITY);
+            writer.println("  gesture trace started");
+        } else if ("stop".equals(command)) {
+            byte[] data = recorder.stop();
+            if (data == null) {
+                writer.println("  gesture trace is not running");
+                return;
+            }
+            File file = new File(getFilesDir(), "gesture-" + System.currentTimeMillis() + ".gtr");
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                out.write(data);
+                writer.println("  gesture trace saved: " + file.getAbsolutePath()
+                        + " samples=" + (data.length - GestureTrace.HEADER_BYTES) / GestureTrace.SAMPLE_BYTES
+                        + " dropped=" + recorder.getDroppedCount());
+            } catch (IOException e) {
+                writer.println("  gesture trace not saved: " + e);
+            }
+        }
+    }
+
+    // Конфигурацию основного дисплея сообщает система; кнопки дополнительных дисплеев
+    // заодно перечитывают конфигурацию своего контекста
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        for (int i = 0; i < buttons.size(); i++) {
+            buttons.valueAt(i).onConfigurationChanged();
+        }
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
-        if (floatButtonView != null) {
-            try {
-                windowManager.removeView(floatButtonView);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-            floatButtonView = null;
+        running = false;
+        mainHandler.removeCallbacks(foregroundRetry);
+        stopForeground(STOP_FOREGROUND_REMOVE);
+        OverlayStateMachine.get().removeListener(stateListener);
+        ScreenStateMonitor.get(this).removeListener(screenListener);
+        // Кнопки убираются до закрытия хранилища: прерванное докатывание ещё сохраняет позицию
+        buttonsShown = false;
+        parkedForScreenOff = false;
+        for (int i = 0; i < buttons.size(); i++) {
+            buttons.valueAt(i).release();
         }
+        scheduler.flush();
+        buttons.clear();
+        displays.removeListener(displaysListener);
+        // Дописываем несохранённую позицию и последнее состояние в фоне
+        positionStore.close();
+        stateStore.close();
         Toast.makeText(getApplicationContext(), "Кнопка удалена", Toast.LENGTH_SHORT).show();
-
-        unregisterReceiver(showHideReceiver);
     }
 }
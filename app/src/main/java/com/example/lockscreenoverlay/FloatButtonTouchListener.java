@@ -0,0 +1,117 @@
+package com.example.lockscreenoverlay;
+
+// Для обработки касаний на View
+import android.view.MotionEvent;
+// Скорость пальца для броска кнопки
+import android.view.VelocityTracker;
+// Базовый класс для работы с элементами окна
+import android.view.View;
+
+// Касания плавающей кнопки: перетаскивание окна, бросок после отпускания и нажатие.
+// Решение «нажатие или перетаскивание» принимает TapDragClassifier, окно двигает FloatButtonService.
+final class FloatButtonTouchListener implements View.OnTouchListener {
+
+    // Что делать с окном кнопки; реализует FloatButtonService
+    interface Host {
+        int getButtonX();                                       // Текущая позиция окна
+        int getButtonY();
+        void onPress();                                         // Палец опустился на кнопку
+        void onDrag(int x, int y, long eventTimeMillis, int samples);  // Новая позиция окна
+        void onDragEnd(float velocityX, float velocityY);       // Отпускание после перетаскивания, px/с
+        void onTap(long eventTimeMillis);                       // Обычное нажатие
+    }
+
+    private final Host host;
+    private final TapDragClassifier classifier = new TapDragClassifier();
+    private final VelocityTracker velocityTracker = VelocityTracker.obtain();
+    private final GestureRecorder recorder = GestureRecorder.get();
+    private boolean recycled = false;   // VelocityTracker возвращён в пул, касания не обрабатываются
+    private int initialX;   // Позиция окна при касании
+    private int initialY;
+
+    FloatButtonTouchListener(Host host) {
+        this.host = host;
+    }
+
+    @Override
+    public boolean onTouch(View v, MotionEvent event) {
+        // Событие, уже стоявшее в очереди к снятой кнопке, не трогает возвращённый VelocityTracker
+        if (recycled) return false;
+        if (recorder.isRecording()) {
+            recordSamples(event);
+        }
+        switch (event.getActionMasked()) {
+            // Пользователь нажал на кнопку
+            case MotionEvent.ACTION_DOWN:
+                host.onPress();
+                // Запоминаем текущие координаты кнопки и касания
+                initialX = host.getButtonX();
+                initialY = host.getButtonY();
+                classifier.onDown(event.getRawX(), event.getRawY());
+                velocityTracker.clear();
+                addRawMovement(event);
+                return true;
+            // Пользователь двигает палец по экрану
+            case MotionEvent.ACTION_MOVE:
+                addRawMovement(event);
+                classifier.onMove(event.getRawX(), event.getRawY());
+                // Пакетное событие содержит ещё и исторические точки; позиция берётся по последней
+                host.onDrag(initialX + classifier.getDeltaX(), initialY + classifier.getDeltaY(),
+                        event.getEventTime(), event.getHistorySize() + 1);
+                return true;
+            // Пользователь отпустил палец
+            case MotionEvent.ACTION_UP:
+                addRawMovement(event);
+                if (classifier.onUp()) {
+                    // Не было движения — значит, произошло обычное нажатие
+                    host.onTap(event.getEventTime());
+                } else {
+                    velocityTracker.computeCurrentVelocity(1000);  // Скорость в px/с
+                    host.onDragEnd(velocityTracker.getXVelocity(), velocityTracker.getYVelocity());
+                }
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                // Жест отобран системой: кнопка остаётся там, где её отпустили
+                if (classifier.isDragging()) {
+                    host.onDragEnd(0f, 0f);
+                }
+                classifier.onCancel();
+                return true;
+        }
+        return false; // В остальных случаях не обрабатываем событие
+    }
+
+    // Отсоединяется от кнопки и возвращает VelocityTracker в пул; повторный вызов ничего не делает
+    void recycle(View view) {
+        if (view != null) view.setOnTouchListener(null);
+        recycle();
+    }
+
+    void recycle() {
+        if (recycled) return;
+        recycled = true;
+        velocityTracker.recycle();
+    }
+
+    // Точки пишутся в координатах экрана; исторические точки пакетного MOVE — каждая отдельно
+    private void recordSamples(MotionEvent event) {
+        int action = event.getActionMasked();
+        float offsetX = event.getRawX() - event.getX();
+        float offsetY = event.getRawY() - event.getY();
+        for (int h = 0; h < event.getHistorySize(); h++) {
+            recorder.record(GestureTrace.TARGET_FLOAT_BUTTON, action, event.getHistoricalEventTime(h),
+                    event.getHistoricalX(h) + offsetX, event.getHistoricalY(h) + offsetY);
+        }
+        recorder.record(GestureTrace.TARGET_FLOAT_BUTTON, action, event.getEventTime(),
+                event.getRawX(), event.getRawY());
+    }
+
+    // VelocityTracker считает по координатам экрана: окно кнопки само двигается вместе с пальцем
+    private void addRawMovement(MotionEvent event) {
+        float offsetX = event.getRawX() - event.getX();
+        float offsetY = event.getRawY() - event.getY();
+        event.offsetLocation(offsetX, offsetY);
+        velocityTracker.addMovement(event);
+        event.offsetLocation(-offsetX, -offsetY);
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.lockscreenoverlay;
+
+// Контекст дисплея, на котором живёт кнопка
+import android.content.Context;
+// Для определения конфигурации экрана дисплея
+import android.content.res.Configuration;
+// Для задания формата пикселей окна оверлея
+import android.graphics.PixelFormat;
+// Размер экрана для границ докатывания кнопки
+import android.graphics.Point;
+// Для вывода счётчиков перетаскивания в лог
+import android.util.Log;
+// Основной дисплей сохраняет ключи позиций старой версии
+import android.view.Display;
+// Для задания расположения окна на экране
+import android.view.Gravity;
+// Для создания View из XML разметки
+import android.view.LayoutInflater;
+// Базовый класс для работы с элементами окна
+import android.view.View;
+// Параметры окна и размер дисплея
+import android.view.WindowManager;
+
+// Для вывода статистики через dumpsys
+import java.io.PrintWriter;
+
+// Плавающая кнопка на одном дисплее: окно, его параметры, перетаскивание и докатывание к краю.
+// FloatButtonService держит по такой кнопке на каждом публичном дисплее; добавление, удаление
+// и перемещение окна идут через общий OverlayScheduler, проход выполняет вызывающий.
+final class FloatButtonWindow {
+    private static final String TAG = "FloatButton";
+    // Позиция по умолчанию, пока нет сохранённой
+    private static final int DEFAULT_X = 0;
+    private static final int DEFAULT_Y = 100;
+
+    // Что кнопка сообщает сервису
+    interface Host {
+        void onInput(FloatButtonWindow window, long eventTimeMillis);  // Точка касания при перетаскивании
+        void onTap(FloatButtonWindow window, long eventTimeMillis);    // Нажатие — блокировка
+        void onAttached(FloatButtonWindow window, View view);          // Окно добавлено
+        void onDetached(FloatButtonWindow window, View view);          // Окно убрано
+    }
+
+    private final int displayId;
+    private final Context displayContext;
+    private final WindowManager windowManager;     // Только для размера дисплея; окна — через планировщик
+    private final Host host;
+    private final PositionStore positionStore;
+    private final PooledWindow<View> window;       // Окно кнопки: создаётся один раз, дальше только добавляется/убирается
+    private final View view;                       // Сама кнопка — View из layout_float_button
+    private WindowManager.LayoutParams params;     // Параметры расположения кнопки и поведения окна
+    private final FrameAlignedLayoutUpdater layoutUpdater; // Не чаще одного updateViewLayout за кадр
+    private final EdgeSnapAnimator edgeSnap;       // Докатывание кнопки к краю после отпускания
+    private final FloatButtonTouchListener touchListener; // Перетаскивание и нажатие кнопки
+    private final Point displaySize = new Point(); // Размер экрана, переиспользуется
+    private String configKey;                      // Ключ позиции для текущей конфигурации дисплея
+    private long motionSampleCount = 0;            // Сколько точек касания получено при перетаскивании
+
+    // Перемещение окна кнопки по касаниям; классификацию жеста делает FloatButtonTouchListener
+    private final FloatButtonTouchListener.Host touchHost = new FloatButtonTouchListener.Host() {
+        @Override
+        public int getButtonX() {
+            return params.x;
+        }
+
+        @Override
+        public int getButtonY() {
+            return params.y;
+        }
+
+        @Override
+        public void onPress() {
+            // Палец ловит катящуюся кнопку там, где она сейчас
+            edgeSnap.cancel();
+        }
+
+        @Override
+        public void onDrag(int x, int y, long eventTimeMillis, int samples) {
+            motionSampleCount += samples;
+            host.onInput(FloatButtonWindow.this, eventTimeMillis);
+            // Обновляем координаты кнопки и применяем их в ближайшем кадре
+            params.x = x;
+            params.y = y;
+            layoutUpdater.requestUpdate();
+        }
+
+        @Override
+        public void onDragEnd(float velocityX, float velocityY) {
+            // Отправляем последнюю позицию, не дожидаясь кадра
+            layoutUpdater.flush();
+            // Кнопка докатывается до края, позиция сохранится при остановке
+            updateBounds();
+            edgeSnap.start(velocityX, velocityY);
+            Log.d(TAG, "drag on display " + displayId + ": motion samples=" + motionSampleCount
+                    + ", updateViewLayout calls=" + layoutUpdater.getIpcCount());
+        }
+
+        @Override
+        public void onTap(long eventTimeMillis) {
+            layoutUpdater.flush();
+            host.onTap(FloatButtonWindow.this, eventTimeMillis);
+        }
+    };
+
+    private final PooledWindow.AttachListener<View> attachListener = new PooledWindow.AttachListener<View>() {
+        @Override
+        public void onAttached(View view) {
+            host.onAttached(FloatButtonWindow.this, view);
+        }
+
+        @Override
+        public void onDetached(View view) {
+            host.onDetached(FloatButtonWindow.this, view);
+        }
+    };
+
+    // Окно готовится сразу, даже если кнопка будет показана позже
+    FloatButtonWindow(int displayId, Context displayContext, OverlayScheduler<View> scheduler,
+                      PositionStore positionStore, Host host) {
+        this.displayId = displayId;
+        this.displayContext = displayContext;
+        this.windowManager = (WindowManager) displayContext.getSystemService(Context.WINDOW_SERVICE);
+        this.host = host;
+        this.positionStore = positionStore;
+        layoutUpdater = new FrameAlignedLayoutUpdater(scheduler, displayId);
+        touchListener = new FloatButtonTouchListener(touchHost);
+        edgeSnap = new EdgeSnapAnimator(displayContext.getResources().getDisplayMetrics().density, layoutUpdater);
+        // На диск попадает только позиция, в которой кнопка остановилась
+        edgeSnap.setRestListener((x, y) -> saveCoordinates(x, y));
+        configKey = configKeyOf(displayContext.getResources().getConfiguration());
+        window = new PooledWindow<>(this::createView, scheduler, displayId);
+        window.setAttachListener(attachListener);
+        view = window.get();
+    }
+
+    int getDisplayId() {
+        return displayId;
+    }
+
+    View getView() {
+        return view;
+    }
+
+    boolean isAttached() {
+        return window.isAttached();
+    }
+
+    FrameAlignedLayoutUpdater getLayoutUpdater() {
+        return layoutUpdater;
+    }
+
+    // Ключ позиции: ориентация и размер дисплея; у дополнительных дисплеев — со своим префиксом
+    private String configKeyOf(Configuration config) {
+        String key = PositionStore.configKey(config.orientation, config.screenWidthDp, config.screenHeightDp);
+        return displayId == Display.DEFAULT_DISPLAY ? key : "display" + displayId + "/" + key;
+    }
+
+    private void saveCoordinates(int x, int y) {
+        positionStore.put(configKey, x, y);
+    }
+
+    private long loadCoordinates() {
+        return positionStore.get(configKey, PositionStore.pack(DEFAULT_X, DEFAULT_Y));
+    }
+
+    // Планирует добавление готового окна в сохранённой позиции
+    void attach() {
+        long coords = loadCoordinates();
+        params.x = PositionStore.unpackX(coords);
+        params.y = PositionStore.unpackY(coords);
+        window.attach();
+    }
+
+    // Планирует удаление окна; View, drawable и параметры остаются для следующего показа
+    void detach() {
+        if (!window.isAttached() && !window.isAttachPending()) return;
+        stopGlide();
+        layoutUpdater.cancel();
+        window.detach();
+    }
+
+    // Планирует удаление и забывает окно (при остановке сервиса или отключении дисплея)
+    void release() {
+        detach();
+        window.release();
+        touchListener.recycle(view);
+    }
+
+    // Перемещает кнопку в сохранённую позицию (после загрузки или смены конфигурации)
+    void applyStoredPosition() {
+        long coords = loadCoordinates();
+        params.x = PositionStore.unpackX(coords);
+        params.y = PositionStore.unpackY(coords);
+        // Снятое окно получит позицию при следующем добавлении
+        if (!window.isAttached()) return;
+        // Позиция могла быть сохранена для другого размера экрана — не даём кнопке уйти за край
+        updateBounds();
+        edgeSnap.clampToBounds();
+        layoutUpdater.requestUpdate();
+    }
+
+    // Конфигурация дисплея изменилась (поворот, смена размера)
+    void onConfigurationChanged() {
+        String newKey = configKeyOf(displayContext.getResources().getConfiguration());
+        if (newKey.equals(configKey)) return;
+        // Докатывание считалось для старых границ экрана
+        stopGlide();
+        configKey = newKey;
+        // Для новой ориентации/размера экрана берём её собственную позицию, если она уже сохранялась
+        if (positionStore.contains(newKey)) {
+            applyStoredPosition();
+        } else if (window.isAttached()) {
+            // Иначе оставляем текущую, но в пределах нового экрана
+            updateBounds();
+            if (edgeSnap.clampToBounds()) {
+                layoutUpdater.requestUpdate();
+            }
+        }
+    }
+
+    // Границы докатывания по текущему размеру экрана и кнопки (до раскладки размер кнопки нулевой)
+    @SuppressWarnings("deprecation")
+    private void updateBounds() {
+        windowManager.getDefaultDisplay().getRealSize(displaySize);
+        edgeSnap.setBounds(displaySize.x, displaySize.y, view.getWidth(), view.getHeight());
+    }
+
+    // Прерывает докатывание; место, где кнопка остановилась, становится её позицией
+    private void stopGlide() {
+        if (edgeSnap.isRunning()) {
+            edgeSnap.cancel();
+            saveCoordinates(params.x, params.y);
+        }
+    }
+
+    // View, параметры окна и обработчик касаний кнопки — один раз на время жизни окна
+    private View createView() {
+        // Загружаем View кнопки из XML разметки; drawable фона и значка создаются здесь же
+        View view = LayoutInflater.from(displayContext).inflate(R.layout.layout_float_button, null);
+
+        // Создаем параметры окна для плавающей кнопки
+        params = new WindowManager.LayoutParams(
+                WindowManager.LayoutParams.WRAP_CONTENT,      // ширина — под размер контента
+                WindowManager.LayoutParams.WRAP_CONTENT,      // высота — под размер контента
+                WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY,  // тип окна — поверх других приложений
+                WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE,         // флаг, чтобы окно не перехватывало фокус
+                PixelFormat.TRANSLUCENT);                          // прозрачность пикселей окна
+        // Располагаем кнопку вверху слева экрана
+        params.gravity = Gravity.TOP | Gravity.START;
+        params.x = DEFAULT_X;
+        params.y = DEFAULT_Y;
+        // WindowManagerOps берёт параметры из View
+        view.setLayoutParams(params);
+        layoutUpdater.attach(view);
+        edgeSnap.attach(params);
+        // Устанавливаем слушатель касаний на кнопку для её перемещения и нажатия
+        view.setOnTouchListener(touchListener);
+        return view;
+    }
+
+    long getCreateCount() {
+        return window.getCreateCount();
+    }
+
+    long getAttachCount() {
+        return window.getAttachCount();
+    }
+
+    // Счётчики окна для dumpsys
+    void dump(PrintWriter writer) {
+        writer.print("  display ");
+        writer.print(displayId);
+        writer.print(": drag: motion samples=");
+        writer.print(motionSampleCount);
+        writer.print(" updateViewLayout calls=");
+        writer.println(layoutUpdater.getIpcCount());
+        writer.print("    edge snap: glides=");
+        writer.print(edgeSnap.getGlideCount());
+        writer.print(" frames=");
+        writer.println(edgeSnap.getFrameCount());
+        writer.print("    window: created=");
+        writer.print(window.getCreateCount());
+        writer.print(" attached=");
+        writer.print(window.getAttachCount());
+        writer.print(" detached=");
+        writer.print(window.getDetachCount());
+        writer.print(" add failures=");
+        writer.println(window.getAttachFailCount());
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.lockscreenoverlay;
+
+// Для выравнивания обновлений окна по кадрам дисплея
+import android.view.Choreographer;
+// Базовый класс для View элементов UI
+import android.view.View;
+
+// Сводит частые изменения параметров окна к одному updateViewLayout (IPC в WindowManager) за кадр.
+// Вызывающий меняет параметры окна (те, что заданы через setLayoutParams) как угодно часто
+// и вызывает requestUpdate(), окно обновляется в ближайшем кадре Choreographer.
+// Обновление идёт через общий OverlayScheduler дисплея окна, как и его добавление и удаление.
+public final class FrameAlignedLayoutUpdater implements Choreographer.FrameCallback {
+    private final OverlayScheduler<View> scheduler;
+    private final int displayId;
+    private View view;                          // Окно, которое обновляем
+    private boolean scheduled = false;          // Кадровый callback уже запрошен
+    private boolean dirty = false;              // Есть изменения, ещё не отправленные в WindowManager
+    private Runnable appliedListener;           // Вызывается после каждого отправленного обновления
+
+    private long requestCount = 0;  // Сколько раз запрашивали обновление
+    private long ipcCount = 0;      // Сколько операций WindowManager выполнили проходы этого окна
+
+    public FrameAlignedLayoutUpdater(OverlayScheduler<View> scheduler, int displayId) {
+        this.scheduler = scheduler;
+        this.displayId = displayId;
+    }
+
+    // Привязываем окно; при смене окна незавершённые обновления старого отбрасываются
+    public void attach(View view) {
+        cancel();
+        this.view = view;
+    }
+
+    public void setAppliedListener(Runnable appliedListener) {
+        this.appliedListener = appliedListener;
+    }
+
+    public void requestUpdate() {
+        requestCount++;
+        dirty = true;
+        if (!scheduled && view != null) {
+            scheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    // Применяет текущие параметры сразу, минуя кадровый callback (для кода, который сам
+    // выполняется раз в кадр, как EdgeSnapAnimator); отложенный запрос при этом снимается
+    public void applyNow() {
+        requestCount++;
+        dirty = true;
+        flush();
+    }
+
+    // Немедленно применяет отложенное обновление (например, в конце перетаскивания)
+    public void flush() {
+        if (scheduled) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            scheduled = false;
+        }
+        applyIfDirty();
+    }
+
+    public void cancel() {
+        if (scheduled) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            scheduled = false;
+        }
+        dirty = false;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        scheduled = false;
+        applyIfDirty();
+    }
+
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    public long getIpcCount() {
+        return ipcCount;
+    }
+
+    private void applyIfDirty() {
+        if (!dirty || view == null) return;
+        dirty = false;
+        // Проход планировщика заодно выполнит операции других окон, если они накопились.
+        // Считаем только выполненные операции: внутри пакета проход отложен до endBatch(),
+        // а обновление, схлопнутое с ожидающим добавлением, отдельного вызова не даёт
+        scheduler.scheduleUpdate(displayId, view);
+        ipcCount += scheduler.flush();
+        if (appliedListener != null) appliedListener.run();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.lockscreenoverlay;
+
+// Для вывода статистики в dumpsys
+import java.io.PrintWriter;
+import java.util.Locale;
+
+// Гистограмма длительностей (кадров или задержек ввода) с фиксированными корзинами.
+// Запись не создаёт объектов, поэтому её можно вызывать на каждом кадре.
+public final class FrameStats {
+    // Верхние границы корзин, мс; последняя корзина — всё, что длиннее
+    private static final int[] BUCKET_LIMITS_MS = {4, 8, 12, 16, 20, 25, 33, 50, 100, 250};
+
+    private final String name;
+    private final long[] buckets = new long[BUCKET_LIMITS_MS.length + 1];
+    private long jankThresholdNanos;  // Длительность, начиная с которой кадр считается пропущенным
+    private long count = 0;
+    private long jankCount = 0;
+    private long totalNanos = 0;
+    private long maxNanos = 0;
+
+    public FrameStats(String name, long jankThresholdNanos) {
+        this.name = name;
+        this.jankThresholdNanos = jankThresholdNanos;
+    }
+
+    public void setJankThresholdNanos(long jankThresholdNanos) {
+        this.jankThresholdNanos = jankThresholdNanos;
+    }
+
+    public void record(long durationNanos) {
+        if (durationNanos < 0) return;
+        count++;
+        totalNanos += durationNanos;
+        if (durationNanos > maxNanos) maxNanos = durationNanos;
+        if (durationNanos > jankThresholdNanos) jankCount++;
+        long ms = durationNanos / 1_000_000L;
+        int i = 0;
+        while (i < BUCKET_LIMITS_MS.length && ms >= BUCKET_LIMITS_MS[i]) i++;
+        buckets[i]++;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getJankCount() {
+        return jankCount;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public double getAverageMillis() {
+        return count == 0 ? 0 : totalNanos / 1_000_000.0 / count;
+    }
+
+    // Приблизительный перцентиль по корзинам: верхняя граница корзины, в которую он попадает
+    public int getPercentileMillis(int percentile) {
+        if (count == 0) return 0;
+        long rank = (count * percentile + 99) / 100;
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return i < BUCKET_LIMITS_MS.length ? BUCKET_LIMITS_MS[i] : (int) (maxNanos / 1_000_000L);
+            }
+        }
+        return (int) (maxNanos / 1_000_000L);
+    }
+
+    public void reset() {
+        for (int i = 0; i < buckets.length; i++) buckets[i] = 0;
+        count = 0;
+        jankCount = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+
+    public void dump(PrintWriter pw, String prefix) {
+        pw.print(prefix);
+        pw.print(name);
+        pw.print(": count=");
+        pw.print(count);
+        pw.print(" jank=");
+        pw.print(jankCount);
+        pw.print(" avg=");
+        pw.print(String.format(Locale.US, "%.2f", getAverageMillis()));
+        pw.print("ms p50<=");
+        pw.print(getPercentileMillis(50));
+        pw.print("ms p90<=");
+        pw.print(getPercentileMillis(90));
+        pw.print("ms p99<=");
+        pw.print(getPercentileMillis(99));
+        pw.print("ms max=");
+        pw.print(maxNanos / 1_000_000L);
+        pw.println("ms");
+        pw.print(prefix);
+        pw.print("  histogram:");
+        for (int i = 0; i < buckets.length; i++) {
+            pw.print(' ');
+            pw.print(i < BUCKET_LIMITS_MS.length ? "<" + BUCKET_LIMITS_MS[i] : ">=" + BUCKET_LIMITS_MS[BUCKET_LIMITS_MS.length - 1]);
+            pw.print("ms=");
+            pw.print(buckets[i]);
+        }
+        pw.println();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.lockscreenoverlay;
+
+// Кодирование точек в формат GestureTrace
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+// Запись жестов на устройстве для воспроизведения в тестах. Буфер выделяется при start(),
+// запись точки на главном потоке ничего не создаёт; если буфер заполнен, запись останавливается.
+// Включается через dumpsys FloatButtonService (trace start / trace stop).
+public final class GestureRecorder {
+    // 16 384 точки по 8 байт — около пяти минут активного перетаскивания на 120 Гц панели
+    public static final int DEFAULT_CAPACITY = 16_384;
+
+    private static final GestureRecorder instance = new GestureRecorder();
+
+    public static GestureRecorder get() {
+        return instance;
+    }
+
+    private volatile boolean recording = false;  // Проверяется на каждом касании без блокировки
+    private ByteBuffer buffer;
+    private long lastTimeMillis;
+    private int droppedCount = 0;               // Точек не поместилось в буфер
+
+    GestureRecorder() {
+    }
+
+    public synchronized void start(float density, int capacity) {
+        buffer = ByteBuffer.allocate(GestureTrace.HEADER_BYTES + capacity * GestureTrace.SAMPLE_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(GestureTrace.MAGIC);
+        buffer.putShort(GestureTrace.VERSION);
+        buffer.putShort((short) 0);
+        buffer.putFloat(density);
+        lastTimeMillis = -1;
+        droppedCount = 0;
+        recording = true;
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    // Точка касания; время — MotionEvent.getEventTime() (или историческое время точки)
+    public void record(int target, int action, long eventTimeMillis, float x, float y) {
+        if (!recording) return;
+        synchronized (this) {
+            if (!recording) return;
+            if (buffer.remaining() < GestureTrace.SAMPLE_BYTES) {
+                droppedCount++;
+                return;
+            }
+            long delta = lastTimeMillis < 0 ? 0 : eventTimeMillis - lastTimeMillis;
+            lastTimeMillis = eventTimeMillis;
+            buffer.put((byte) target);
+            buffer.put((byte) action);
+            buffer.putShort((short) Math.max(0, Math.min(delta, GestureTrace.MAX_DELTA_MS)));
+            buffer.putShort(toFixed(x));
+            buffer.putShort(toFixed(y));
+        }
+    }
+
+    // Останавливает запись и возвращает её байты (null, если запись не шла)
+    public synchronized byte[] stop() {
+        if (!recording) return null;
+        recording = false;
+        byte[] data = Arrays.copyOf(buffer.array(), buffer.position());
+        buffer = null;
+        return data;
+    }
+
+    public synchronized int getDroppedCount() {
+        return droppedCount;
+    }
+
+    private static short toFixed(float value) {
+        float scaled = value * GestureTrace.POSITION_SCALE;
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(scaled)));
+    }
+}
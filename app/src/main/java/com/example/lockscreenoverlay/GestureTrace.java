@@ -0,0 +1,109 @@
+package com.example.lockscreenoverlay;
+
+// Чтение файла записи
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+// Разбор двоичного формата
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Запись жестов: точки касаний с метками времени в компактном двоичном формате.
+// Пишет GestureRecorder на устройстве, читают тесты воспроизведения.
+//
+// Формат (little-endian):
+//   заголовок, 12 байт: MAGIC (int), VERSION (short), резерв (short), плотность экрана (float);
+//   точка, 8 байт: цель (byte), действие MotionEvent (byte), время с предыдущей точки, мс (unsigned short,
+//   паузы длиннее 65 с обрезаются), x и y в четвертях пикселя (short).
+// Для плавающей кнопки координаты — на экране (окно двигается вместе с пальцем), для свайпа — в зоне свайпа.
+public final class GestureTrace {
+    public static final int MAGIC = 0x31525447;     // "GTR1"
+    public static final short VERSION = 1;
+    public static final int HEADER_BYTES = 12;
+    public static final int SAMPLE_BYTES = 8;
+    public static final float POSITION_SCALE = 4f;  // Четверть пикселя — точнее, чем нужно для жеста
+    public static final int MAX_DELTA_MS = 0xFFFF;
+
+    // Какой обработчик получил касание
+    public static final int TARGET_FLOAT_BUTTON = 0;
+    public static final int TARGET_LOCK_SWIPE = 1;
+
+    private final float density;
+    private final byte[] targets;
+    private final byte[] actions;
+    private final long[] timesMillis;   // От начала записи
+    private final float[] xs;
+    private final float[] ys;
+
+    private GestureTrace(float density, int size) {
+        this.density = density;
+        targets = new byte[size];
+        actions = new byte[size];
+        timesMillis = new long[size];
+        xs = new float[size];
+        ys = new float[size];
+    }
+
+    public static GestureTrace read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            out.write(chunk, 0, read);
+        }
+        return decode(out.toByteArray());
+    }
+
+    public static GestureTrace decode(byte[] data) throws IOException {
+        if (data.length < HEADER_BYTES) throw new IOException("gesture trace too short: " + data.length);
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt() != MAGIC) throw new IOException("not a gesture trace");
+        short version = buffer.getShort();
+        if (version != VERSION) throw new IOException("unsupported gesture trace version " + version);
+        buffer.getShort();  // Резерв
+        float density = buffer.getFloat();
+        if ((data.length - HEADER_BYTES) % SAMPLE_BYTES != 0) {
+            throw new IOException("truncated gesture trace: " + data.length + " bytes");
+        }
+        GestureTrace trace = new GestureTrace(density, (data.length - HEADER_BYTES) / SAMPLE_BYTES);
+        long time = 0;
+        for (int i = 0; i < trace.size(); i++) {
+            trace.targets[i] = buffer.get();
+            trace.actions[i] = buffer.get();
+            time += buffer.getShort() & 0xFFFF;
+            trace.timesMillis[i] = time;
+            trace.xs[i] = buffer.getShort() / POSITION_SCALE;
+            trace.ys[i] = buffer.getShort() / POSITION_SCALE;
+        }
+        return trace;
+    }
+
+    // Плотность экрана, на котором записан жест: пороги в dp пересчитываются при воспроизведении
+    public float getDensity() {
+        return density;
+    }
+
+    public int size() {
+        return actions.length;
+    }
+
+    public int getTarget(int index) {
+        return targets[index];
+    }
+
+    public int getAction(int index) {
+        return actions[index];
+    }
+
+    public long getTimeMillis(int index) {
+        return timesMillis[index];
+    }
+
+    public float getX(int index) {
+        return xs[index];
+    }
+
+    public float getY(int index) {
+        return ys[index];
+    }
+}
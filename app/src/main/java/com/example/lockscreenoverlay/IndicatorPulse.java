@@ -0,0 +1,71 @@
+package com.example.lockscreenoverlay;
+
+// Для загрузки анимации свойств из ресурсов
+import android.animation.Animator;
+import android.animation.AnimatorInflater;
+// Контекст для загрузки ресурсов
+import android.content.Context;
+// Базовый класс для View элементов UI
+import android.view.View;
+
+// Пульсация индикатора свайпа. Работает только пока экран блокировки виден и дисплей включён,
+// иначе анимация ставится на паузу и не будит отрисовку.
+// Целью может быть View (LayoutLockContent) или любой объект с setScaleX/setScaleY (LockCanvasView).
+public final class IndicatorPulse {
+    private final View layerTarget;  // Индикатор-View, который пульсирует на аппаратном слое (или null)
+    private final Animator animator; // scaleX/scaleY из R.animator.pulse_animation
+    private boolean overlayVisible = false;
+    private boolean screenOn = true;
+    private boolean enabled = true;  // Анимация разрешена профилем
+
+    public IndicatorPulse(View target) {
+        this(target.getContext(), target, target);
+    }
+
+    // Цель без View: значения scaleX/scaleY она применяет при отрисовке сама
+    public IndicatorPulse(Context context, Object target) {
+        this(context, target, null);
+    }
+
+    private IndicatorPulse(Context context, Object target, View layerTarget) {
+        this.layerTarget = layerTarget;
+        this.animator = AnimatorInflater.loadAnimator(context, R.animator.pulse_animation);
+        this.animator.setTarget(target);
+    }
+
+    public void setOverlayVisible(boolean visible) {
+        overlayVisible = visible;
+        update();
+    }
+
+    public void setScreenOn(boolean on) {
+        screenOn = on;
+        update();
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        update();
+    }
+
+    public boolean isRunning() {
+        return animator.isStarted() && !animator.isPaused();
+    }
+
+    private void update() {
+        boolean shouldRun = enabled && overlayVisible && screenOn;
+        if (shouldRun == isRunning()) return;
+        if (shouldRun) {
+            // На аппаратном слое индикатор растеризуется один раз, кадры только масштабируют слой
+            if (layerTarget != null) layerTarget.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+            if (animator.isPaused()) {
+                animator.resume();
+            } else {
+                animator.start();
+            }
+        } else {
+            animator.pause();
+            if (layerTarget != null) layerTarget.setLayerType(View.LAYER_TYPE_NONE, null);
+        }
+    }
+}
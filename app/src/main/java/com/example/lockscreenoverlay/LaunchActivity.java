@@ -0,0 +1,38 @@
+package com.example.lockscreenoverlay;
+
+import android.app.Activity;  // Лёгкая активность без AppCompat: ничего не инфлейтится
+import android.content.Intent;  // Для запуска сервиса и активности разрешений
+import android.os.Bundle;  // Для передачи данных в методы жизненного цикла активности
+import android.os.Process;  // Для времени старта процесса
+import android.os.SystemClock;  // Для отметок времени запуска
+import android.provider.Settings;  // Для проверки разрешения на оверлей
+
+// Точка входа из лаунчера. Без разметки и темы (Theme.NoDisplay): если разрешение на оверлей уже есть,
+// сразу запускает плавающую кнопку и закрывается; иначе передаёт управление MainActivity.
+// Разрешение на уведомления (Android 13+) на маршрут не влияет: уведомление необязательно,
+// MainActivity спрашивает его один раз, а без него кнопка работает без уведомления.
+public class LaunchActivity extends Activity {
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        if (!FloatButtonService.isRunning()) {
+            // Замер идёт только для запуска, который действительно показывает кнопку
+            StartupTimeline timeline = StartupTimeline.get();
+            timeline.reset();
+            timeline.mark(StartupTimeline.Milestone.PROCESS_START, Process.getStartUptimeMillis());
+            timeline.mark(StartupTimeline.Milestone.LAUNCH, SystemClock.uptimeMillis());
+        }
+        if (!Settings.canDrawOverlays(this)) {
+            // Разрешения нет — показываем экран с запросом разрешения
+            startActivity(new Intent(this, MainActivity.class));
+        } else if (!FloatButtonService.isRunning()) {
+            startService(new Intent(this, FloatButtonService.class));
+        } else {
+            // Повторный запуск при работающем сервисе возвращает уведомление, если его скрыли
+            startService(new Intent(this, FloatButtonService.class)
+                    .setAction(FloatButtonService.ACTION_SET_FOREGROUND)
+                    .putExtra(FloatButtonService.EXTRA_ENABLED, true));
+        }
+        finish();
+    }
+}
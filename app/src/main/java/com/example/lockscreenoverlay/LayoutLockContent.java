@@ -0,0 +1,175 @@
+package com.example.lockscreenoverlay;
+
+// Контекст дисплея, на котором показывается окно
+import android.content.Context;
+// Для создания View из XML разметки
+import android.view.LayoutInflater;
+// Для обработки касаний на View (свайпы, жесты)
+import android.view.MotionEvent;
+// Базовый класс для View элементов UI
+import android.view.View;
+// Для вычисления скорости броска при разблокировке
+import android.view.VelocityTracker;
+// Пружинящий возврат индикатора
+import android.view.animation.OvershootInterpolator;
+// Для работы с кнопками UI
+import android.widget.Button;
+// Текст подсказки над зоной свайпа
+import android.widget.TextView;
+
+// Экран блокировки из разметки layout_lock_screen.xml: индикатор двигается через translationX,
+// пульсирует на аппаратном слое, кнопка закрытия — обычный Button.
+final class LayoutLockContent implements LockContent {
+    private static final long SNAP_BACK_DURATION_MS = 250;
+
+    private final LockOverlayWindow.Host host;
+    private final View view;                    // View блокирующего экрана
+    private final View swipeZone;               // Зона свайпа с обработчиком касаний
+    private final View dragIndicator;           // Круглый индикатор свайпа
+    private final TextView messageView;         // Подсказка над зоной свайпа
+    private final Button closeButton;           // Кнопка «Закрыть приложение»
+    private final SwipeUnlockEngine swipeEngine;
+    private VelocityTracker velocityTracker = VelocityTracker.obtain();  // null после release()
+    private final OvershootInterpolator snapBackInterpolator = new OvershootInterpolator(1.5f);
+    private final IndicatorPulse pulse;
+    private final GestureRecorder recorder = GestureRecorder.get();
+
+    LayoutLockContent(Context displayContext, LockOverlayWindow.Host host) {
+        this.host = host;
+        // Загружаем View блокирующего экрана из XML разметки в контексте нужного дисплея
+        view = LayoutInflater.from(displayContext).inflate(R.layout.layout_lock_screen, null);
+        // Получаем область свайпа для отслеживания движений пользователя
+        swipeZone = view.findViewById(R.id.swipe_area);
+        // Получаем круглый индикатор, который пользователь будет перетаскивать
+        dragIndicator = view.findViewById(R.id.drag_indicator);
+        pulse = new IndicatorPulse(dragIndicator);
+        swipeEngine = new SwipeUnlockEngine(displayContext.getResources().getDisplayMetrics().density);
+        final View indicator = dragIndicator;
+        // Положение индикатора меняется через translationX — это свойство RenderNode, без relayout
+        swipeZone.setOnTouchListener(new View.OnTouchListener() {
+            @Override
+            public boolean onTouch(View v, MotionEvent event) {
+                if (recorder.isRecording()) {
+                    recordSamples(event);
+                }
+                switch(event.getActionMasked()) {
+                    case MotionEvent.ACTION_DOWN:
+                        host.onUserActivity();
+                        // Прерываем незаконченный возврат индикатора
+                        indicator.animate().cancel();
+                        velocityTracker.clear();
+                        velocityTracker.addMovement(event);
+                        // Индикатор может дойти до правого края с тем же отступом, что и слева
+                        swipeEngine.setMaxOffset(swipeZone.getWidth() - indicator.getRight() - indicator.getLeft());
+                        swipeEngine.onDown(event.getX());
+                        return true;
+
+                    case MotionEvent.ACTION_MOVE:
+                        if (!swipeEngine.isDragging()) return false;
+                        velocityTracker.addMovement(event);
+                        host.onSwipeInput(event.getEventTime());
+                        boolean unlock = swipeEngine.onMove(event.getX());
+                        indicator.setTranslationX(swipeEngine.getOffset());
+                        if (unlock) {
+                            host.onUnlockGesture();
+                        }
+                        return true;
+
+                    case MotionEvent.ACTION_UP:
+                        if (!swipeEngine.isDragging()) return true;
+                        velocityTracker.addMovement(event);
+                        velocityTracker.computeCurrentVelocity(1000);  // Скорость в px/с
+                        if (swipeEngine.onUp(velocityTracker.getXVelocity())) {
+                            host.onUnlockGesture();
+                        } else {
+                            host.onSwipeCancelled();
+                            snapBack();
+                        }
+                        return true;
+
+                    case MotionEvent.ACTION_CANCEL:
+                        swipeEngine.onCancel();
+                        host.onSwipeCancelled();
+                        snapBack();
+                        return true;
+                }
+                return false;  // Остальные события не обрабатываем
+            }
+        });
+
+        // Любое касание экрана блокировки продлевает время до отключения экрана
+        view.setOnTouchListener((v, event) -> {
+            if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+                host.onUserActivity();
+            }
+            return false;
+        });
+
+        // Получаем кнопку закрытия экрана блокировки
+        closeButton = view.findViewById(R.id.close_button);
+        messageView = view.findViewById(R.id.textMessage);
+        // Устанавливаем обработчик нажатия на кнопку закрытия
+        closeButton.setOnClickListener(v -> host.onCloseClicked());
+    }
+
+    // Профиль меняет только свойства View и порог свайпа: окно не пересоздаётся и не обновляется в WindowManager
+    @Override
+    public void applyProfile(LockProfile profile) {
+        view.setBackgroundColor(profile.getScrimColor());
+        messageView.setText(profile.getMessageText());
+        closeButton.setText(profile.getCloseText());
+        closeButton.setVisibility(profile.isCloseVisible() ? View.VISIBLE : View.GONE);
+        swipeEngine.configure(profile.getUnlockDistanceDp(),
+                profile.getUnlockMethod() == LockProfile.UnlockMethod.SWIPE_OR_FLING);
+        pulse.setEnabled(profile.isAnimationEnabled());
+    }
+
+    @Override
+    public View getView() {
+        return view;
+    }
+
+    @Override
+    public void reset() {
+        // Возвращаем индикатор в исходную позицию для следующей блокировки
+        swipeEngine.onCancel();
+        dragIndicator.animate().cancel();
+        dragIndicator.setTranslationX(0f);
+        pulse.setOverlayVisible(false);
+    }
+
+    @Override
+    public void setPulseActive(boolean overlayVisible, boolean screenOn) {
+        pulse.setScreenOn(screenOn);
+        pulse.setOverlayVisible(overlayVisible);
+    }
+
+    @Override
+    public void release() {
+        if (velocityTracker == null) return;
+        reset();
+        // Событие, пришедшее до удаления окна, не дойдёт до возвращённого в пул VelocityTracker
+        swipeZone.setOnTouchListener(null);
+        velocityTracker.recycle();
+        velocityTracker = null;
+    }
+
+    // Точки пишутся в координатах зоны свайпа; исторические точки пакетного MOVE — каждая отдельно
+    private void recordSamples(MotionEvent event) {
+        int action = event.getActionMasked();
+        for (int h = 0; h < event.getHistorySize(); h++) {
+            recorder.record(GestureTrace.TARGET_LOCK_SWIPE, action, event.getHistoricalEventTime(h),
+                    event.getHistoricalX(h), event.getHistoricalY(h));
+        }
+        recorder.record(GestureTrace.TARGET_LOCK_SWIPE, action, event.getEventTime(), event.getX(), event.getY());
+    }
+
+    // Возврат индикатора анимируется на аппаратном слое, без перерисовки остального экрана
+    private void snapBack() {
+        dragIndicator.animate()
+                .translationX(0f)
+                .setDuration(SNAP_BACK_DURATION_MS)
+                .setInterpolator(snapBackInterpolator)
+                .withLayer();
+    }
+}
@@ -0,0 +1,458 @@
+package com.example.lockscreenoverlay;
+
+// Анимация возврата индикатора
+import android.animation.ValueAnimator;
+// Контекст дисплея, на котором показывается окно
+import android.content.Context;
+// Рисование экрана блокировки
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+// Аргументы действия специальных возможностей
+import android.os.Bundle;
+// Многострочная подпись над зоной свайпа
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+// Для обработки касаний (свайп и кнопка закрытия)
+import android.view.MotionEvent;
+// Базовый класс для View элементов UI
+import android.view.View;
+// Для вычисления скорости броска при разблокировке
+import android.view.VelocityTracker;
+// Событие нажатия кнопки закрытия для TalkBack
+import android.view.accessibility.AccessibilityEvent;
+// Кнопка закрытия описывается как обычная Button
+import android.widget.Button;
+// Пружинящий возврат индикатора
+import android.view.animation.OvershootInterpolator;
+
+// Нарисованная кнопка закрытия видна TalkBack как виртуальная View
+import androidx.core.view.ViewCompat;
+import androidx.core.view.accessibility.AccessibilityNodeInfoCompat;
+import androidx.customview.widget.ExploreByTouchHelper;
+
+// Список виртуальных View для ExploreByTouchHelper
+import java.util.List;
+
+// Экран блокировки одной View: затемнение, кнопка закрытия, подпись, зона свайпа, индикатор и стрелка
+// рисуются в onDraw без иерархии из layout_lock_screen.xml. Размеры и цвета повторяют разметку.
+// Paint, Path и StaticLayout создаются заранее: onDraw и обработка касаний ничего не выделяют.
+// Кнопка закрытия доступна специальным возможностям через ExploreByTouchHelper.
+// Выбирается профилем (renderer=canvas).
+public final class LockCanvasView extends View implements LockContent {
+    private static final long SNAP_BACK_DURATION_MS = 250;
+
+    // Размеры из layout_lock_screen.xml, dp
+    private static final float CLOSE_PADDING_DP = 16f;
+    private static final float CLOSE_TEXT_SP = 14f;
+    private static final float MESSAGE_TEXT_SP = 20f;
+    private static final float TRACK_HEIGHT_DP = 100f;
+    private static final float TRACK_CORNER_DP = 8f;
+    private static final float TRACK_STROKE_DP = 2f;
+    private static final float THUMB_SIZE_DP = 60f;
+    private static final float THUMB_MARGIN_DP = 16f;
+    private static final float THUMB_STROKE_DP = 1f;
+    private static final float ARROW_SIZE_DP = 40f;
+    private static final float ARROW_MARGIN_DP = 88f;
+    private static final float THUMB_MAX_SCALE = 1.2f;  // valueTo из R.animator.pulse_animation
+    private static final int CLOSE_VIRTUAL_ID = 1;      // Кнопка закрытия для ExploreByTouchHelper
+
+    // Цвета из drawable/circle_background, outline_background и holo_red_dark
+    private static final int CLOSE_COLOR = 0xFFCC0000;
+    private static final int TRACK_COLOR = 0x33000000;
+    private static final int THUMB_COLOR = 0xFFE188A7;
+    private static final int ARROW_ALPHA = 178;         // android:alpha="0.7"
+
+    // Масштаб индикатора для IndicatorPulse: ObjectAnimator вызывает setScaleX/setScaleY
+    public static final class ThumbScale {
+        private final LockCanvasView view;
+        private float scale = 1f;
+
+        ThumbScale(LockCanvasView view) {
+            this.view = view;
+        }
+
+        public void setScaleX(float scaleX) {
+            scale = scaleX;
+            // Кадр пульсации меняет только круг индикатора, а не весь экран
+            view.invalidateThumb();
+        }
+
+        public void setScaleY(float scaleY) {
+            // Пульсация всегда пропорциональная, достаточно scaleX
+        }
+    }
+
+    private final LockOverlayWindow.Host host;
+    private final float density;
+    private final SwipeUnlockEngine swipeEngine;
+    private final VelocityTracker velocityTracker = VelocityTracker.obtain();
+    private boolean released = false;           // release() вызван, касания больше не обрабатываются
+    private final ValueAnimator snapBackAnimator;
+    private final ThumbScale thumbScale = new ThumbScale(this);
+    private final IndicatorPulse pulse;
+    private final GestureRecorder recorder = GestureRecorder.get();
+    private final CloseAccessibilityHelper accessibilityHelper = new CloseAccessibilityHelper();
+
+    private final Paint closePaint = new Paint();
+    private final TextPaint closeTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final TextPaint messagePaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint trackFillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint trackStrokePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint thumbFillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint thumbStrokePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint arrowPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Path arrowPath = new Path();      // В координатах зоны свайпа
+
+    // Геометрия пересчитывается в onLayout и при смене подписи
+    private final RectF closeRect = new RectF();
+    private final RectF trackRect = new RectF();
+    private float closeTextX, closeTextY;           // Базовая линия текста кнопки
+    private float messageTop;
+    private StaticLayout messageLayout;
+
+    private int scrimColor = LockProfile.DEFAULT.getScrimColor();
+    private String messageText = LockProfile.DEFAULT.getMessageText();
+    private String closeText = LockProfile.DEFAULT.getCloseText();
+    private boolean closeVisible = true;
+
+    private float thumbOffset = 0f;                 // Смещение индикатора от начального положения
+    private boolean swiping = false;                // Касание началось в зоне свайпа
+    private boolean closePressed = false;           // Касание началось на кнопке закрытия
+
+    // Кнопка закрытия рисуется в onDraw; для TalkBack она — виртуальная Button с действием нажатия
+    private final class CloseAccessibilityHelper extends ExploreByTouchHelper {
+        private final Rect bounds = new Rect();
+
+        CloseAccessibilityHelper() {
+            super(LockCanvasView.this);
+        }
+
+        @Override
+        protected int getVirtualViewAt(float x, float y) {
+            return closeVisible && closeRect.contains(x, y) ? CLOSE_VIRTUAL_ID : INVALID_ID;
+        }
+
+        @Override
+        protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+            // До первого layout у кнопки нет границ
+            if (closeVisible && !closeRect.isEmpty()) virtualViewIds.add(CLOSE_VIRTUAL_ID);
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        protected void onPopulateNodeForVirtualView(int virtualViewId, AccessibilityNodeInfoCompat node) {
+            closeRect.roundOut(bounds);
+            node.setBoundsInParent(bounds);
+            node.setText(closeText);
+            node.setClassName(Button.class.getName());
+            node.setClickable(true);
+            node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK);
+        }
+
+        @Override
+        protected boolean onPerformActionForVirtualView(int virtualViewId, int action, Bundle arguments) {
+            if (virtualViewId != CLOSE_VIRTUAL_ID || action != AccessibilityNodeInfoCompat.ACTION_CLICK) {
+                return false;
+            }
+            sendEventForVirtualView(virtualViewId, AccessibilityEvent.TYPE_VIEW_CLICKED);
+            host.onCloseClicked();
+            return true;
+        }
+    }
+
+    public LockCanvasView(Context displayContext, LockOverlayWindow.Host host) {
+        super(displayContext);
+        this.host = host;
+        density = getResources().getDisplayMetrics().density;
+        float scaledDensity = getResources().getDisplayMetrics().scaledDensity;
+        swipeEngine = new SwipeUnlockEngine(density);
+        // Как android:fitsSystemWindows у разметки: системные панели превращаются в отступы View
+        setFitsSystemWindows(true);
+
+        closePaint.setColor(CLOSE_COLOR);
+        closeTextPaint.setColor(0xFFFFFFFF);
+        closeTextPaint.setTextSize(CLOSE_TEXT_SP * scaledDensity);
+        closeTextPaint.setTextAlign(Paint.Align.CENTER);
+        messagePaint.setColor(0xFFFFFFFF);
+        messagePaint.setTextSize(MESSAGE_TEXT_SP * scaledDensity);
+        trackFillPaint.setColor(TRACK_COLOR);
+        trackStrokePaint.setStyle(Paint.Style.STROKE);
+        trackStrokePaint.setStrokeWidth(TRACK_STROKE_DP * density);
+        trackStrokePaint.setColor(0xFFFFFFFF);
+        thumbFillPaint.setColor(THUMB_COLOR);
+        thumbStrokePaint.setStyle(Paint.Style.STROKE);
+        thumbStrokePaint.setStrokeWidth(THUMB_STROKE_DP * density);
+        thumbStrokePaint.setColor(0xFFFFFFFF);
+        arrowPaint.setColor(0xFFFFFFFF);
+        arrowPaint.setAlpha(ARROW_ALPHA);
+
+        // Индикатор возвращается той же пружиной, что и в разметке
+        snapBackAnimator = ValueAnimator.ofFloat(0f, 0f);
+        snapBackAnimator.setDuration(SNAP_BACK_DURATION_MS);
+        snapBackAnimator.setInterpolator(new OvershootInterpolator(1.5f));
+        snapBackAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(ValueAnimator animation) {
+                thumbOffset = (Float) animation.getAnimatedValue();
+                invalidate();
+            }
+        });
+        pulse = new IndicatorPulse(displayContext, thumbScale);
+        ViewCompat.setAccessibilityDelegate(this, accessibilityHelper);
+    }
+
+    @Override
+    public View getView() {
+        return this;
+    }
+
+    @Override
+    public void applyProfile(LockProfile profile) {
+        scrimColor = profile.getScrimColor();
+        boolean messageChanged = !profile.getMessageText().equals(messageText);
+        messageText = profile.getMessageText();
+        closeText = profile.getCloseText();
+        closeVisible = profile.isCloseVisible();
+        swipeEngine.configure(profile.getUnlockDistanceDp(),
+                profile.getUnlockMethod() == LockProfile.UnlockMethod.SWIPE_OR_FLING);
+        pulse.setEnabled(profile.isAnimationEnabled());
+        if (messageChanged && getWidth() > 0) {
+            updateGeometry(getWidth(), getHeight());
+        }
+        // Текст и видимость кнопки закрытия могли измениться
+        accessibilityHelper.invalidateRoot();
+        invalidate();
+    }
+
+    @Override
+    public void reset() {
+        // Возвращаем индикатор в исходную позицию для следующей блокировки
+        swipeEngine.onCancel();
+        swiping = false;
+        closePressed = false;
+        snapBackAnimator.cancel();
+        thumbOffset = 0f;
+        pulse.setOverlayVisible(false);
+        invalidate();
+    }
+
+    @Override
+    public void setPulseActive(boolean overlayVisible, boolean screenOn) {
+        pulse.setScreenOn(screenOn);
+        pulse.setOverlayVisible(overlayVisible);
+    }
+
+    @Override
+    public void release() {
+        if (released) return;
+        reset();
+        released = true;
+        velocityTracker.recycle();
+    }
+
+    // Начало зоны свайпа в координатах View — записи жестов ведутся относительно неё
+    float getTrackLeft() {
+        return trackRect.left;
+    }
+
+    float getTrackTop() {
+        return trackRect.top;
+    }
+
+    // Геометрия зависит от размера и отступов системных панелей; layout этого окна бывает редко
+    // (добавление, поворот, смена панелей), поэтому подпись можно перестроить прямо здесь
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        updateGeometry(right - left, bottom - top);
+    }
+
+    private void updateGeometry(int w, int h) {
+        float left = getPaddingLeft();
+        float right = w - getPaddingRight();
+        float top = getPaddingTop();
+        float bottom = h - getPaddingBottom();
+
+        // Кнопка закрытия во всю ширину сверху, высота — по тексту с отступами
+        Paint.FontMetrics metrics = closeTextPaint.getFontMetrics();
+        float closePadding = CLOSE_PADDING_DP * density;
+        float closeHeight = metrics.descent - metrics.ascent + 2 * closePadding;
+        closeRect.set(left, top, right, top + closeHeight);
+        closeTextX = closeRect.centerX();
+        closeTextY = closeRect.top + closePadding - metrics.ascent;
+
+        trackRect.set(left, bottom - TRACK_HEIGHT_DP * density, right, bottom);
+
+        // Стрелка ic_arrow_right: путь в сетке 24x24, растянутой на 40 dp
+        float unit = ARROW_SIZE_DP * density / 24f;
+        float arrowLeft = ARROW_MARGIN_DP * density;
+        float arrowTop = (trackRect.height() - ARROW_SIZE_DP * density) / 2f;
+        arrowPath.reset();
+        arrowPath.moveTo(arrowLeft + 10 * unit, arrowTop + 17 * unit);
+        arrowPath.rLineTo(5 * unit, -5 * unit);
+        arrowPath.rLineTo(-5 * unit, -5 * unit);
+        arrowPath.close();
+
+        // Подпись по центру над зоной свайпа; перестраивается только при смене размера или текста
+        int textWidth = Math.max(0, (int) (right - left));
+        messageLayout = StaticLayout.Builder.obtain(messageText, 0, messageText.length(), messagePaint, textWidth)
+                .setAlignment(Layout.Alignment.ALIGN_CENTER)
+                .build();
+        messageTop = trackRect.top - messageLayout.getHeight();
+        accessibilityHelper.invalidateRoot();
+    }
+
+    // Квадрат индикатора при наибольшем масштабе пульсации, в координатах View; стрелка внутри него.
+    // Остальной экран при этом не перерисовывается
+    @SuppressWarnings("deprecation")
+    private void invalidateThumb() {
+        float radius = THUMB_SIZE_DP * density / 2f;
+        float reach = radius * THUMB_MAX_SCALE + thumbStrokePaint.getStrokeWidth();
+        float cx = trackRect.left + THUMB_MARGIN_DP * density + radius + thumbOffset;
+        float cy = trackRect.centerY();
+        invalidate((int) Math.floor(cx - reach), (int) Math.floor(cy - reach),
+                (int) Math.ceil(cx + reach), (int) Math.ceil(cy + reach));
+    }
+
+    // Наведение при «изучении касанием» TalkBack попадает на виртуальную кнопку закрытия
+    @Override
+    protected boolean dispatchHoverEvent(MotionEvent event) {
+        return accessibilityHelper.dispatchHoverEvent(event) || super.dispatchHoverEvent(event);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        // Затемнение — единственный слой во весь экран, остальное рисуется поверх только там, где нужно
+        canvas.drawColor(scrimColor);
+        if (closeVisible) {
+            canvas.drawRect(closeRect, closePaint);
+            canvas.drawText(closeText, closeTextX, closeTextY, closeTextPaint);
+        }
+        if (messageLayout != null) {
+            canvas.save();
+            canvas.translate(trackRect.left, messageTop);
+            messageLayout.draw(canvas);
+            canvas.restore();
+        }
+
+        float corner = TRACK_CORNER_DP * density;
+        canvas.drawRoundRect(trackRect, corner, corner, trackFillPaint);
+        canvas.drawRoundRect(trackRect, corner, corner, trackStrokePaint);
+
+        canvas.save();
+        canvas.translate(trackRect.left, trackRect.top);
+        // Индикатор: смещение свайпа и масштаб пульсации относительно его центра; масштаб — только для него
+        float radius = THUMB_SIZE_DP * density / 2f;
+        float cx = THUMB_MARGIN_DP * density + radius + thumbOffset;
+        float cy = trackRect.height() / 2f;
+        canvas.save();
+        canvas.scale(thumbScale.scale, thumbScale.scale, cx, cy);
+        canvas.drawCircle(cx, cy, radius, thumbFillPaint);
+        canvas.drawCircle(cx, cy, radius - thumbStrokePaint.getStrokeWidth() / 2f, thumbStrokePaint);
+        canvas.restore();
+        // Стрелка поверх индикатора, как в разметке (ImageView после drag_indicator)
+        canvas.drawPath(arrowPath, arrowPaint);
+        canvas.restore();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        // Событие, пришедшее до удаления окна, не трогает возвращённый в пул VelocityTracker
+        if (released) return false;
+        float x = event.getX();
+        float y = event.getY();
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                // Любое касание экрана блокировки продлевает время до отключения экрана
+                host.onUserActivity();
+                if (closeVisible && closeRect.contains(x, y)) {
+                    closePressed = true;
+                    return true;
+                }
+                if (!trackRect.contains(x, y)) return false;
+                swiping = true;
+                if (recorder.isRecording()) recordSamples(event);
+                // Прерываем незаконченный возврат индикатора
+                snapBackAnimator.cancel();
+                velocityTracker.clear();
+                velocityTracker.addMovement(event);
+                // Индикатор может дойти до правого края с тем же отступом, что и слева
+                float thumbLeft = THUMB_MARGIN_DP * density;
+                swipeEngine.setMaxOffset(trackRect.width() - (thumbLeft + THUMB_SIZE_DP * density) - thumbLeft);
+                swipeEngine.onDown(x - trackRect.left);
+                thumbOffset = swipeEngine.getOffset();
+                return true;
+
+            case MotionEvent.ACTION_MOVE:
+                if (closePressed) {
+                    closePressed = closeRect.contains(x, y);
+                    return true;
+                }
+                if (!swiping) return false;
+                if (recorder.isRecording()) recordSamples(event);
+                if (!swipeEngine.isDragging()) return false;
+                velocityTracker.addMovement(event);
+                host.onSwipeInput(event.getEventTime());
+                boolean unlock = swipeEngine.onMove(x - trackRect.left);
+                thumbOffset = swipeEngine.getOffset();
+                invalidate();
+                if (unlock) {
+                    host.onUnlockGesture();
+                }
+                return true;
+
+            case MotionEvent.ACTION_UP:
+                if (closePressed) {
+                    closePressed = false;
+                    if (closeRect.contains(x, y)) {
+                        performClick();
+                        host.onCloseClicked();
+                    }
+                    return true;
+                }
+                if (!swiping) return false;
+                swiping = false;
+                if (recorder.isRecording()) recordSamples(event);
+                if (!swipeEngine.isDragging()) return true;
+                velocityTracker.addMovement(event);
+                velocityTracker.computeCurrentVelocity(1000);  // Скорость в px/с
+                if (swipeEngine.onUp(velocityTracker.getXVelocity())) {
+                    host.onUnlockGesture();
+                } else {
+                    host.onSwipeCancelled();
+                    snapBack();
+                }
+                return true;
+
+            case MotionEvent.ACTION_CANCEL:
+                closePressed = false;
+                if (!swiping) return false;
+                swiping = false;
+                if (recorder.isRecording()) recordSamples(event);
+                swipeEngine.onCancel();
+                host.onSwipeCancelled();
+                snapBack();
+                return true;
+        }
+        return false;  // Остальные события не обрабатываем
+    }
+
+    // Точки пишутся в координатах зоны свайпа, как у LayoutLockContent
+    private void recordSamples(MotionEvent event) {
+        int action = event.getActionMasked();
+        for (int h = 0; h < event.getHistorySize(); h++) {
+            recorder.record(GestureTrace.TARGET_LOCK_SWIPE, action, event.getHistoricalEventTime(h),
+                    event.getHistoricalX(h) - trackRect.left, event.getHistoricalY(h) - trackRect.top);
+        }
+        recorder.record(GestureTrace.TARGET_LOCK_SWIPE, action, event.getEventTime(),
+                event.getX() - trackRect.left, event.getY() - trackRect.top);
+    }
+
+    private void snapBack() {
+        snapBackAnimator.setFloatValues(thumbOffset, 0f);
+        snapBackAnimator.start();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.lockscreenoverlay;
+
+// Базовый класс для View элементов UI
+import android.view.View;
+
+// Содержимое окна экрана блокировки: разметка из XML (LayoutLockContent) или одна
+// рисуемая View (LockCanvasView). Выбирается профилем, окно и его параметры общие.
+interface LockContent {
+    View getView();
+
+    // Тексты, затемнение, порог свайпа и анимация из профиля — без пересоздания View
+    void applyProfile(LockProfile profile);
+
+    // Прерывает жест, останавливает пульсацию и возвращает индикатор в начало (перед скрытием окна)
+    void reset();
+
+    void setPulseActive(boolean overlayVisible, boolean screenOn);
+
+    // Окно больше не будет показано (замена по профилю, отключение дисплея, остановка):
+    // возвращает VelocityTracker в пул и перестаёт принимать касания
+    void release();
+}
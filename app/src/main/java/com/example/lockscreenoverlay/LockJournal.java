@@ -0,0 +1,208 @@
+package com.example.lockscreenoverlay;
+
+// Для вывода сводки через dumpsys
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+// Журнал сеансов блокировки: события с меткой времени (System.nanoTime) и числом-значением
+// в кольцевом буфере фиксированного размера. Запись события ничего не выделяет и вызывается
+// с главного потока; на диск события уходят из фонового потока через drainTo().
+// Если буфер переполнен до сброса, самые старые несброшенные события теряются (см. getDroppedCount).
+// Сводка (сколько длилась блокировка, доля неудачных свайпов, задержки) считается сразу при записи.
+public final class LockJournal {
+    // 1024 события — десятки блокировок между сбросами
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    // Значение события — длительность в нс, если не сказано иное
+    public enum Event {
+        LOCK_REQUESTED,             // Нажата кнопка блокировки; значение 0
+        OVERLAY_SHOWN,              // Окна блокировки видимы; от нажатия (или 0, если нажатия не было)
+        OVERLAY_FIRST_FRAME,        // Отрисован первый кадр; от нажатия
+        UNLOCK_GESTURE_START,       // Палец двинулся по зоне свайпа; значение 0
+        UNLOCK_GESTURE_FAILED,      // Индикатор вернулся на место; длительность жеста
+        UNLOCK_GESTURE_COMPLETE,    // Свайп разблокировал экран; длительность жеста
+        UNLOCKED,                   // Экран блокировки скрыт; сколько он был показан
+        SERVICE_DESTROYED           // Сервис экрана блокировки остановлен; значение 0
+    }
+
+    private static final Event[] EVENTS = Event.values();
+
+    // Получатель сброшенных событий; вызывается из фонового потока
+    public interface Sink {
+        void write(Event event, long timeNanos, long value) throws IOException;
+    }
+
+    private final int capacity;
+    private final byte[] events;
+    private final long[] times;
+    private final long[] values;
+    private long written = 0;           // Всего записано событий
+    private long drained = 0;           // Из них сброшено (или потеряно при переполнении)
+    private long droppedCount = 0;      // Потеряно при переполнении
+
+    // Копия для сброса: drainTo пишет в Sink без удержания блокировки буфера
+    private final Object drainLock = new Object();
+    private final byte[] drainEvents;
+    private final long[] drainTimes;
+    private final long[] drainValues;
+
+    // Сводка с запуска процесса
+    private long lockCount = 0;
+    private long unlockCount = 0;
+    private long lockedNanosTotal = 0;
+    private long lockedNanosMax = 0;
+    private long shownCount = 0;
+    private long shownNanosTotal = 0;
+    private long firstFrameCount = 0;
+    private long firstFrameNanosTotal = 0;
+    private long gestureCompleteCount = 0;
+    private long gestureFailedCount = 0;
+    private long gestureCompleteNanosTotal = 0;
+
+    public LockJournal(int capacity) {
+        this.capacity = capacity;
+        events = new byte[capacity];
+        times = new long[capacity];
+        values = new long[capacity];
+        drainEvents = new byte[capacity];
+        drainTimes = new long[capacity];
+        drainValues = new long[capacity];
+    }
+
+    public synchronized void record(Event event, long timeNanos, long value) {
+        int index = (int) (written % capacity);
+        events[index] = (byte) event.ordinal();
+        times[index] = timeNanos;
+        values[index] = value;
+        written++;
+        if (written - drained > capacity) {
+            // Перезаписали самое старое несброшенное событие
+            drained = written - capacity;
+            droppedCount++;
+        }
+        switch (event) {
+            case LOCK_REQUESTED:
+                lockCount++;
+                break;
+            case OVERLAY_SHOWN:
+                if (value > 0) {
+                    shownCount++;
+                    shownNanosTotal += value;
+                }
+                break;
+            case OVERLAY_FIRST_FRAME:
+                firstFrameCount++;
+                firstFrameNanosTotal += value;
+                break;
+            case UNLOCK_GESTURE_FAILED:
+                gestureFailedCount++;
+                break;
+            case UNLOCK_GESTURE_COMPLETE:
+                gestureCompleteCount++;
+                gestureCompleteNanosTotal += value;
+                break;
+            case UNLOCKED:
+                unlockCount++;
+                lockedNanosTotal += value;
+                lockedNanosMax = Math.max(lockedNanosMax, value);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Отдаёт несброшенные события в порядке записи; возвращает их количество.
+    // Если Sink бросил исключение, события считаются потерянными: журнал не должен расти бесконечно
+    public int drainTo(Sink sink) throws IOException {
+        synchronized (drainLock) {
+            int count;
+            synchronized (this) {
+                count = (int) (written - drained);
+                for (int i = 0; i < count; i++) {
+                    int index = (int) ((drained + i) % capacity);
+                    drainEvents[i] = events[index];
+                    drainTimes[i] = times[index];
+                    drainValues[i] = values[index];
+                }
+                drained = written;
+            }
+            for (int i = 0; i < count; i++) {
+                sink.write(EVENTS[drainEvents[i]], drainTimes[i], drainValues[i]);
+            }
+            return count;
+        }
+    }
+
+    public synchronized long getWrittenCount() {
+        return written;
+    }
+
+    public synchronized int getPendingCount() {
+        return (int) (written - drained);
+    }
+
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public synchronized long getLockCount() {
+        return lockCount;
+    }
+
+    public synchronized long getUnlockCount() {
+        return unlockCount;
+    }
+
+    public synchronized long getGestureFailedCount() {
+        return gestureFailedCount;
+    }
+
+    public synchronized long getGestureCompleteCount() {
+        return gestureCompleteCount;
+    }
+
+    public synchronized long getLockedNanosTotal() {
+        return lockedNanosTotal;
+    }
+
+    // Доля свайпов, после которых индикатор вернулся на место (0..1, или -1, если свайпов не было)
+    public synchronized float getGestureFailureRate() {
+        long gestures = gestureCompleteCount + gestureFailedCount;
+        return gestures == 0 ? -1f : (float) gestureFailedCount / gestures;
+    }
+
+    public synchronized void dumpSummary(PrintWriter writer) {
+        writer.println("  lock journal: " + written + " events, " + (written - drained) + " pending, "
+                + droppedCount + " dropped");
+        writer.println(String.format(Locale.US, "  locks: %d requested, %d unlocked, locked avg %.1fs max %.1fs",
+                lockCount, unlockCount, average(lockedNanosTotal, unlockCount) / 1e9,
+                lockedNanosMax / 1e9));
+        writer.println(String.format(Locale.US,
+                "  unlock gestures: %d completed, %d failed (%.0f%%), completed avg %.0fms",
+                gestureCompleteCount, gestureFailedCount, Math.max(0f, getGestureFailureRate()) * 100,
+                average(gestureCompleteNanosTotal, gestureCompleteCount) / 1e6));
+        writer.println(String.format(Locale.US, "  lock transition: tap-to-shown avg %.1fms, tap-to-first-frame avg %.1fms",
+                average(shownNanosTotal, shownCount) / 1e6, average(firstFrameNanosTotal, firstFrameCount) / 1e6));
+    }
+
+    // Последние события из буфера (сброшенные и нет) — для dumpsys без обращения к диску.
+    // Формат строки как в файле, но без времени от эпохи: <System.nanoTime> <событие> <значение>
+    public synchronized void dumpRecent(PrintWriter writer) {
+        int count = (int) Math.min(written, capacity);
+        writer.println("  last " + count + " journal events:");
+        for (long i = written - count; i < written; i++) {
+            int index = (int) (i % capacity);
+            writer.print("    ");
+            writer.print(times[index]);
+            writer.print(' ');
+            writer.print(EVENTS[events[index]].name());
+            writer.print(' ');
+            writer.println(values[index]);
+        }
+    }
+
+    private static double average(long total, long count) {
+        return count == 0 ? 0 : (double) total / count;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.lockscreenoverlay;
+
+// Файл журнала и его предыдущая часть после ротации
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+// Журнал блокировок на диске: файл только дописывается, строка на событие
+//   <время, мс от эпохи> <System.nanoTime> <событие> <значение>
+// Когда файл превышает maxBytes, он становится lock_journal.1.log (старая часть удаляется)
+// и запись начинается в новый файл. Все методы вызываются только из фонового потока.
+public final class LockJournalFile implements LockJournal.Sink {
+    public static final String FILE_NAME = "lock_journal.log";
+    public static final String ROTATED_FILE_NAME = "lock_journal.1.log";
+    // Два файла по 256 КБ — несколько тысяч блокировок
+    public static final long DEFAULT_MAX_BYTES = 256 * 1024;
+
+    private final File file;
+    private final File rotatedFile;
+    private final long maxBytes;
+    private final long wallClockOffsetMillis;   // Перевод System.nanoTime во время от эпохи
+    private Writer writer;
+    private long size;
+    private int rotationCount = 0;
+
+    public LockJournalFile(File dir, long maxBytes, long wallClockOffsetMillis) {
+        this.file = new File(dir, FILE_NAME);
+        this.rotatedFile = new File(dir, ROTATED_FILE_NAME);
+        this.maxBytes = maxBytes;
+        this.wallClockOffsetMillis = wallClockOffsetMillis;
+    }
+
+    // Смещение между System.currentTimeMillis и System.nanoTime на момент вызова
+    public static long currentWallClockOffsetMillis() {
+        return System.currentTimeMillis() - System.nanoTime() / 1_000_000L;
+    }
+
+    @Override
+    public void write(LockJournal.Event event, long timeNanos, long value) throws IOException {
+        String line = (wallClockOffsetMillis + timeNanos / 1_000_000L) + " " + timeNanos + " "
+                + event.name() + " " + value + "\n";
+        if (writer == null) open();
+        if (size > 0 && size + line.length() > maxBytes) rotate();
+        writer.write(line);
+        size += line.length();  // Строка из ASCII: символов столько же, сколько байт
+    }
+
+    // Дописывает буфер в файл; вызывается после каждого сброса журнала
+    public void flush() throws IOException {
+        if (writer != null) writer.flush();
+    }
+
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    public int getRotationCount() {
+        return rotationCount;
+    }
+
+    // Выводит обе части журнала — сначала старую
+    public void export(PrintWriter out) throws IOException {
+        flush();
+        copy(rotatedFile, out);
+        copy(file, out);
+    }
+
+    // Записывает обе части журнала в отдельный файл; файл появляется целиком, без недописанного хвоста
+    public void export(File target) throws IOException {
+        File partial = new File(target.getPath() + ".tmp");
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(partial), StandardCharsets.UTF_8))) {
+            export(out);
+            if (out.checkError()) throw new IOException("cannot write " + partial);
+        }
+        if (!partial.renameTo(target)) {
+            throw new IOException("cannot rename " + partial);
+        }
+    }
+
+    private void open() throws IOException {
+        size = file.length();
+        writer = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8);
+    }
+
+    private void rotate() throws IOException {
+        close();
+        if (rotatedFile.exists() && !rotatedFile.delete()) {
+            throw new IOException("cannot delete " + rotatedFile);
+        }
+        if (!file.renameTo(rotatedFile)) {
+            throw new IOException("cannot rotate " + file);
+        }
+        rotationCount++;
+        open();
+    }
+
+    private static void copy(File source, PrintWriter out) throws IOException {
+        if (!source.exists()) return;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(source), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                out.println(line);
+            }
+        }
+    }
+}
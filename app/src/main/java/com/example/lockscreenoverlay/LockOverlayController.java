@@ -0,0 +1,470 @@
+package com.example.lockscreenoverlay;
+
+// Контекст приложения и контексты дисплеев
+import android.content.Context;
+// Обработчик главного потока для загрузки профиля
+import android.os.Handler;
+import android.os.Looper;
+// Для перевода времени события касания в общую шкалу
+import android.os.SystemClock;
+// Для логирования задержки блокировки
+import android.util.Log;
+// Окна экрана блокировки по идентификатору дисплея
+import android.util.SparseArray;
+// Описание дисплея
+import android.view.Display;
+// Базовый класс для View элементов UI
+import android.view.View;
+
+// Файл профилей блокировки
+import java.io.File;
+// Ошибки записи журнала
+import java.io.IOException;
+// Для вывода статистики в dumpsys
+import java.io.PrintWriter;
+// Фоновый поток для разбора профиля, завершается при простое
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+// Фоновый поток для сброса журнала блокировок
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+// Долгоживущий контроллер экрана блокировки: на каждом дисплее окно создаётся один раз,
+// а блокировка/разблокировка только переключают видимость уже добавленных окон.
+// Все операции с WindowManager всех дисплеев идут через общий с плавающей кнопкой OverlayScheduler
+// (см. OverlayDisplays), поэтому блокировка N дисплеев — это один проход с N обновлениями.
+public final class LockOverlayController implements LockOverlayWindow.Host {
+    private static final String TAG = "LockOverlay";
+    // Пока экран заблокирован, журнал сбрасывается на диск раз в минуту; после разблокировки — сразу
+    private static final long JOURNAL_FLUSH_PERIOD_MS = 60_000;
+    // Полный журнал для dumpsys journal export — в файл, чтобы не ждать диск в dump()
+    private static final String JOURNAL_EXPORT_FILE_NAME = "lock_journal_export.log";
+
+    // Обработчики действий пользователя на экране блокировки
+    public interface Callbacks {
+        void onUnlockRequested();   // Пользователь разблокировал экран свайпом
+        void onCloseRequested();    // Пользователь нажал «Закрыть приложение»
+    }
+
+    // Получатель замеров «нажатие кнопки -> первый кадр экрана блокировки»
+    public interface LatencyListener {
+        void onLockLatency(long latencyNanos);
+    }
+
+    private static LockOverlayController instance;
+
+    // Один контроллер на процесс, общий для FloatButtonService и LockScreenService
+    public static LockOverlayController get(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new LockOverlayController(appContext, OverlayDisplays.get(appContext));
+        }
+        return instance;
+    }
+
+    // Тесты убирают окна и останавливают поток журнала, следующий get() создаст новый контроллер
+    static void resetForTest() {
+        if (instance == null) return;
+        instance.release();
+        instance.journalExecutor.shutdownNow();
+        instance = null;
+    }
+
+    private final Context appContext;
+    private final OverlayDisplays displays;
+    private final OverlayScheduler<View> scheduler;
+    private final SparseArray<LockOverlayWindow> windows = new SparseArray<>();  // Окно на каждом дисплее
+    private boolean prepared = false;           // Окна созданы и отслеживаются дисплеи
+    private boolean showing = false;            // Экран блокировки сейчас виден
+    private Callbacks callbacks;
+    private LatencyListener latencyListener;
+
+    private long lockRequestedAtNanos = 0;      // Момент нажатия на кнопку (0 — замер не идёт)
+    private boolean awaitingFirstFrame = false; // Ждём первый кадр после показа
+    private long lastLockLatencyNanos = -1;     // Последний замер задержки
+
+    private final LockPowerPolicy powerPolicy;      // Когда снимать FLAG_KEEP_SCREEN_ON
+    private boolean keepScreenOn = false;           // Текущее решение политики питания
+    private boolean applyingShowState = false;      // Флаги применятся общим проходом в show()
+    private final OverlayFrameMonitor frameMonitor; // Статистика кадров и задержки свайпа (основной дисплей)
+    private final LockProfileStore profileStore;    // Профиль блокировки; живёт, пока жив процесс
+    private long lockedFrameCount = 0;          // Кадров отрисовано за текущую блокировку
+    private long lockedSinceNanos = 0;          // Начало текущей блокировки
+    private float lastFramesPerMinute = -1;     // Кадров в минуту за последнюю блокировку
+    private long swipeStartNanos = 0;           // Начало текущего свайпа (0 — свайпа нет)
+
+    // Журнал сеансов блокировки: запись с главного потока, диск — только в journalExecutor
+    private final LockJournal journal = new LockJournal(LockJournal.DEFAULT_CAPACITY);
+    private final LockJournalFile journalFile;
+    private final ScheduledExecutorService journalExecutor = Executors.newSingleThreadScheduledExecutor();
+    private ScheduledFuture<?> journalFlushSchedule;    // Периодический сброс текущей блокировки
+    private final Runnable journalFlushTask = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                if (journal.drainTo(journalFile) > 0) journalFile.flush();
+            } catch (IOException e) {
+                Log.w(TAG, "lock journal write failed", e);
+            }
+        }
+    };
+
+    // Пульсация останавливается при выключении дисплея и возобновляется при включении
+    private final ScreenStateMonitor.Listener screenListener = new ScreenStateMonitor.Listener() {
+        @Override
+        public void onScreenStateChanged(boolean interactive) {
+            for (int i = 0; i < windows.size(); i++) {
+                windows.valueAt(i).setPulseActive(showing, interactive);
+            }
+            powerPolicy.onScreenStateChanged(interactive);
+        }
+    };
+
+    // Подключённый дисплей сразу получает скрытое окно, отключённый — забывается.
+    // Добавление окон выполняет общий проход OverlayDisplays после рассылки
+    private final OverlayDisplays.Listener displaysListener = new OverlayDisplays.Listener() {
+        @Override
+        public void onDisplayAdded(int displayId, Context displayContext) {
+            LockProfile profile = profileStore.getProfile();
+            LockOverlayWindow window = new LockOverlayWindow(displayContext, displayId, profile.getRenderer(),
+                    LockOverlayController.this);
+            window.applyProfile(profile);
+            windows.put(displayId, window);
+            if (displayId == Display.DEFAULT_DISPLAY) {
+                frameMonitor.attach(window.getView());
+            }
+            if (showing) {
+                window.applyShown(keepScreenOn);
+                window.setPulseActive(true, ScreenStateMonitor.get(appContext).isInteractive());
+            }
+            scheduler.scheduleAdd(displayId, window.getView());
+        }
+
+        @Override
+        public void onDisplayRemoved(int displayId) {
+            LockOverlayWindow window = windows.get(displayId);
+            if (window == null) return;
+            // Окна отключённого дисплея система убирает сама
+            window.setPulseActive(false, false);
+            window.release();
+            windows.remove(displayId);
+            if (displayId == Display.DEFAULT_DISPLAY) {
+                frameMonitor.detach(window.getView());
+            }
+        }
+    };
+
+    // Новый профиль применяется к уже добавленным окнам без их пересоздания;
+    // только смена способа отрисовки заменяет окна — одним проходом планировщика
+    private final LockProfileStore.Listener profileListener = new LockProfileStore.Listener() {
+        @Override
+        public void onProfileChanged(LockProfile profile) {
+            for (int i = 0; i < windows.size(); i++) {
+                LockOverlayWindow window = windows.valueAt(i);
+                if (window.getRenderer() != profile.getRenderer()) {
+                    window = replaceWindow(window, profile);
+                }
+                window.applyProfile(profile);
+            }
+            scheduler.flush();
+            powerPolicy.setTimeoutMs(keepScreenOnTimeoutMs(profile));
+        }
+    };
+
+    // Виден пакету, чтобы тесты могли подставить OverlayDisplays с поддельными операциями окон
+    LockOverlayController(Context appContext, OverlayDisplays displays) {
+        this.appContext = appContext;
+        this.displays = displays;
+        this.scheduler = displays.getScheduler();
+        this.frameMonitor = new OverlayFrameMonitor(appContext, "lock overlay");
+        // Поток разбора нужен только на время чтения файла и не держится в простое
+        ThreadPoolExecutor profileExecutor = new ThreadPoolExecutor(0, 1, 10, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>());
+        final Handler mainHandler = new Handler(Looper.getMainLooper());
+        this.profileStore = new LockProfileStore(
+                new FileProfileSource(new File(appContext.getFilesDir(), FileProfileSource.FILE_NAME)),
+                profileExecutor, mainHandler::post);
+        this.powerPolicy = new LockPowerPolicy(this::setKeepScreenOn,
+                keepScreenOnTimeoutMs(profileStore.getProfile()));
+        profileStore.addListener(profileListener);
+        profileStore.reload();
+        this.journalFile = new LockJournalFile(appContext.getFilesDir(), LockJournalFile.DEFAULT_MAX_BYTES,
+                LockJournalFile.currentWallClockOffsetMillis());
+    }
+
+    // Таймаут задаёт файл профилей, который LockProfileStore читает в фоне;
+    // до загрузки и без него в профиле действует таймаут по умолчанию
+    private static long keepScreenOnTimeoutMs(LockProfile profile) {
+        return profile.hasKeepScreenOnTimeout()
+                ? profile.getKeepScreenOnTimeoutMs()
+                : LockPowerPolicy.DEFAULT_TIMEOUT_MS;
+    }
+
+    public void setCallbacks(Callbacks callbacks) {
+        this.callbacks = callbacks;
+    }
+
+    public void setLatencyListener(LatencyListener latencyListener) {
+        this.latencyListener = latencyListener;
+    }
+
+    // Заранее создаёт окна на всех дисплеях и добавляет их скрытыми, чтобы показ был мгновенным
+    public void prepare() {
+        if (prepared) return;
+        prepared = true;
+        displays.addListener(displaysListener);
+    }
+
+    // Новое окно с другим содержимым на месте старого; операции выполнит следующий flush()
+    private LockOverlayWindow replaceWindow(LockOverlayWindow old, LockProfile profile) {
+        int displayId = old.getDisplayId();
+        LockOverlayWindow window = new LockOverlayWindow(old.getDisplayContext(), displayId,
+                profile.getRenderer(), this);
+        old.setPulseActive(false, false);
+        old.release();
+        if (showing) {
+            window.applyShown(keepScreenOn);
+            window.setPulseActive(true, ScreenStateMonitor.get(appContext).isInteractive());
+        }
+        windows.put(displayId, window);
+        if (displayId == Display.DEFAULT_DISPLAY) {
+            frameMonitor.detach(old.getView());
+            frameMonitor.attach(window.getView());
+        }
+        // Новое окно добавляется поверх старого, поэтому экран блокировки не мигает
+        scheduler.scheduleAdd(displayId, window.getView());
+        scheduler.scheduleRemove(displayId, old.getView());
+        return window;
+    }
+
+    // Запоминаем время нажатия (eventTime — время MotionEvent в шкале uptimeMillis)
+    public void markLockRequested(long eventTimeMillis) {
+        long sinceEventMillis = SystemClock.uptimeMillis() - eventTimeMillis;
+        lockRequestedAtNanos = System.nanoTime() - sinceEventMillis * 1_000_000L;
+        journal.record(LockJournal.Event.LOCK_REQUESTED, lockRequestedAtNanos, 0);
+    }
+
+    // Сервис экрана блокировки остановлен: событие сразу уходит на диск
+    public void markServiceDestroyed() {
+        journal.record(LockJournal.Event.SERVICE_DESTROYED, System.nanoTime(), 0);
+        flushJournal();
+    }
+
+    public void show() {
+        prepare();
+        if (showing || windows.size() == 0) return;
+        showing = true;
+        awaitingFirstFrame = lockRequestedAtNanos != 0;
+        ScreenStateMonitor screenMonitor = ScreenStateMonitor.get(appContext);
+        screenMonitor.addListener(screenListener);
+        boolean interactive = screenMonitor.isInteractive();
+        // FLAG_KEEP_SCREEN_ON выставляет политика питания, тем же проходом, что и остальные флаги
+        applyingShowState = true;
+        powerPolicy.onLockShown(interactive);
+        applyingShowState = false;
+        // Окна уже есть — достаточно сделать их видимыми и принимающими касания
+        for (int i = 0; i < windows.size(); i++) {
+            LockOverlayWindow window = windows.valueAt(i);
+            window.applyShown(keepScreenOn);
+            scheduler.scheduleUpdate(window.getDisplayId(), window.getView());
+        }
+        scheduler.flush();
+        lockedFrameCount = 0;
+        lockedSinceNanos = System.nanoTime();
+        journal.record(LockJournal.Event.OVERLAY_SHOWN, lockedSinceNanos,
+                lockRequestedAtNanos != 0 ? lockedSinceNanos - lockRequestedAtNanos : 0);
+        // Вне блокировки событий почти нет, поэтому поток журнала просыпается только на её время
+        journalFlushSchedule = journalExecutor.scheduleWithFixedDelay(journalFlushTask,
+                JOURNAL_FLUSH_PERIOD_MS, JOURNAL_FLUSH_PERIOD_MS, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < windows.size(); i++) {
+            windows.valueAt(i).setPulseActive(true, interactive);
+        }
+    }
+
+    public void hide() {
+        if (!showing) return;
+        stopLockedSession();
+        for (int i = 0; i < windows.size(); i++) {
+            LockOverlayWindow window = windows.valueAt(i);
+            window.applyHidden();
+            scheduler.scheduleUpdate(window.getDisplayId(), window.getView());
+        }
+        scheduler.flush();
+    }
+
+    // Полностью убирает окна со всех дисплеев (при остановке приложения)
+    public void release() {
+        if (showing) {
+            stopLockedSession();
+        }
+        if (prepared) {
+            for (int i = 0; i < windows.size(); i++) {
+                LockOverlayWindow window = windows.valueAt(i);
+                scheduler.scheduleRemove(window.getDisplayId(), window.getView());
+                window.release();
+                if (window.getDisplayId() == Display.DEFAULT_DISPLAY) {
+                    frameMonitor.detach(window.getView());
+                }
+            }
+            scheduler.flush();
+            windows.clear();
+            displays.removeListener(displaysListener);
+            prepared = false;
+        }
+        showing = false;
+    }
+
+    public boolean isShowing() {
+        return showing;
+    }
+
+    public long getLastLockLatencyNanos() {
+        return lastLockLatencyNanos;
+    }
+
+    public LockPowerPolicy getPowerPolicy() {
+        return powerPolicy;
+    }
+
+    public OverlayFrameMonitor getFrameMonitor() {
+        return frameMonitor;
+    }
+
+    public LockProfileStore getProfileStore() {
+        return profileStore;
+    }
+
+    public LockJournal getJournal() {
+        return journal;
+    }
+
+    // Сбрасывает журнал на диск в фоне, не дожидаясь очередного периода
+    public void flushJournal() {
+        journalExecutor.execute(journalFlushTask);
+    }
+
+    // Планирует выгрузку всего журнала (с диска и ещё не сброшенные события) в файл и сразу
+    // возвращает его путь. Service.dump выполняется на главном потоке, поэтому ждать диск нельзя:
+    // выгрузка идёт в journalExecutor после очередного сброса, файл заменяется целиком по готовности
+    public File exportJournal() {
+        final File target = new File(appContext.getFilesDir(), JOURNAL_EXPORT_FILE_NAME);
+        journalExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                journalFlushTask.run();
+                try {
+                    journalFile.export(target);
+                } catch (IOException e) {
+                    Log.w(TAG, "lock journal export failed", e);
+                }
+            }
+        });
+        return target;
+    }
+
+    // Кадров в минуту за текущую блокировку (или за последнюю, если экран уже разблокирован)
+    public float getFramesPerMinute() {
+        if (!showing) return lastFramesPerMinute;
+        long elapsedNanos = System.nanoTime() - lockedSinceNanos;
+        if (elapsedNanos <= 0) return 0f;
+        return lockedFrameCount * 60_000_000_000f / elapsedNanos;
+    }
+
+    // Дисплеи с окном блокировки и счётчики планировщика
+    public void dumpWindows(PrintWriter writer) {
+        writer.print("  lock windows on displays:");
+        for (int i = 0; i < windows.size(); i++) {
+            writer.print(" " + windows.keyAt(i));
+        }
+        writer.println();
+        writer.println("  window manager passes: " + scheduler.getPassCount()
+                + ", operations: " + scheduler.getOpCount());
+    }
+
+    // Останавливает всё, что работает только пока экран заблокирован, и подводит итоги
+    private void stopLockedSession() {
+        lastFramesPerMinute = getFramesPerMinute();
+        long now = System.nanoTime();
+        journal.record(LockJournal.Event.UNLOCKED, now, now - lockedSinceNanos);
+        swipeStartNanos = 0;
+        Log.d(TAG, "frames per minute while locked: " + lastFramesPerMinute);
+        showing = false;
+        awaitingFirstFrame = false;
+        lockRequestedAtNanos = 0;
+        for (int i = 0; i < windows.size(); i++) {
+            windows.valueAt(i).setPulseActive(false, false);
+        }
+        powerPolicy.onLockHidden();
+        ScreenStateMonitor.get(appContext).removeListener(screenListener);
+        // Периодический сброс заканчивается вместе с блокировкой, остаток уходит на диск один раз
+        if (journalFlushSchedule != null) {
+            journalFlushSchedule.cancel(false);
+            journalFlushSchedule = null;
+        }
+        flushJournal();
+    }
+
+    private void setKeepScreenOn(boolean keepScreenOn) {
+        this.keepScreenOn = keepScreenOn;
+        if (!showing || applyingShowState) return;
+        for (int i = 0; i < windows.size(); i++) {
+            LockOverlayWindow window = windows.valueAt(i);
+            window.setKeepScreenOn(keepScreenOn);
+            scheduler.scheduleUpdate(window.getDisplayId(), window.getView());
+        }
+        scheduler.flush();
+    }
+
+    @Override
+    public void onUserActivity() {
+        powerPolicy.onUserActivity();
+    }
+
+    @Override
+    public void onSwipeInput(long eventTimeMillis) {
+        frameMonitor.markInput(eventTimeMillis);
+        if (swipeStartNanos == 0) {
+            swipeStartNanos = System.nanoTime();
+            journal.record(LockJournal.Event.UNLOCK_GESTURE_START, swipeStartNanos, 0);
+        }
+    }
+
+    @Override
+    public void onSwipeCancelled() {
+        if (swipeStartNanos == 0) return;  // Касание без движения — не попытка разблокировки
+        long now = System.nanoTime();
+        journal.record(LockJournal.Event.UNLOCK_GESTURE_FAILED, now, now - swipeStartNanos);
+        swipeStartNanos = 0;
+    }
+
+    @Override
+    public void onUnlockGesture() {
+        if (swipeStartNanos != 0) {
+            long now = System.nanoTime();
+            journal.record(LockJournal.Event.UNLOCK_GESTURE_COMPLETE, now, now - swipeStartNanos);
+            swipeStartNanos = 0;
+        }
+        if (callbacks != null) callbacks.onUnlockRequested();
+    }
+
+    @Override
+    public void onCloseClicked() {
+        if (callbacks != null) callbacks.onCloseRequested();
+    }
+
+    // Кадры и задержку «нажатие -> первый кадр» считаем по основному дисплею, где нажата кнопка
+    @Override
+    public void onFrameDrawn(LockOverlayWindow window) {
+        if (window.getDisplayId() != Display.DEFAULT_DISPLAY) return;
+        if (showing) lockedFrameCount++;
+        if (!awaitingFirstFrame) return;
+        awaitingFirstFrame = false;
+        lastLockLatencyNanos = System.nanoTime() - lockRequestedAtNanos;
+        lockRequestedAtNanos = 0;
+        journal.record(LockJournal.Event.OVERLAY_FIRST_FRAME, System.nanoTime(), lastLockLatencyNanos);
+        Log.d(TAG, "tap-to-first-frame: " + (lastLockLatencyNanos / 1_000_000.0) + " ms");
+        if (latencyListener != null) latencyListener.onLockLatency(lastLockLatencyNanos);
+    }
+}
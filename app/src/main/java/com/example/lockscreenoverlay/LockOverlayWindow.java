@@ -0,0 +1,117 @@
+package com.example.lockscreenoverlay;
+
+// Контекст дисплея, на котором показывается окно
+import android.content.Context;
+// Для задания формата пикселей окна оверлея
+import android.graphics.PixelFormat;
+// Базовый класс для View элементов UI
+import android.view.View;
+// Для отслеживания отрисовки окна
+import android.view.ViewTreeObserver;
+// Параметры окна оверлея
+import android.view.WindowManager;
+
+// Окно экрана блокировки на одном дисплее: содержимое (LockContent) и параметры окна.
+// Само окно не обращается к WindowManager — меняет параметры, а операции выполняет OverlayScheduler.
+final class LockOverlayWindow {
+    // События окна, которые обрабатывает LockOverlayController
+    interface Host {
+        void onUserActivity();                          // Любое касание экрана блокировки
+        void onSwipeInput(long eventTimeMillis);        // Движение пальца по зоне свайпа
+        void onSwipeCancelled();                        // Свайп не дотянул, индикатор возвращается
+        void onUnlockGesture();                         // Свайп разблокировки завершён
+        void onCloseClicked();                          // Нажата кнопка «Закрыть приложение»
+        void onFrameDrawn(LockOverlayWindow window);    // Окно отрисовало кадр
+    }
+
+    private final Context displayContext;
+    private final int displayId;
+    private final LockProfile.Renderer renderer;
+    private final LockContent content;          // Разметка или рисуемая View — по профилю
+    private final View view;                    // View блокирующего экрана
+    private final WindowManager.LayoutParams params;
+
+    LockOverlayWindow(Context displayContext, int displayId, LockProfile.Renderer renderer, final Host host) {
+        this.displayContext = displayContext;
+        this.displayId = displayId;
+        this.renderer = renderer;
+        content = renderer == LockProfile.Renderer.CANVAS
+                ? new LockCanvasView(displayContext, host)
+                : new LayoutLockContent(displayContext, host);
+        view = content.getView();
+
+        view.getViewTreeObserver().addOnDrawListener(new ViewTreeObserver.OnDrawListener() {
+            @Override
+            public void onDraw() {
+                host.onFrameDrawn(LockOverlayWindow.this);
+            }
+        });
+
+        // Параметры окна для блокирующего экрана: полный размер экрана, тип оверлея
+        params = new WindowManager.LayoutParams(
+                WindowManager.LayoutParams.MATCH_PARENT,  // Во всю ширину экрана
+                WindowManager.LayoutParams.MATCH_PARENT,  // Во всю высоту экрана
+                WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY,  // Окно уровня оверлей
+                0,                                        // Флаги задаются при показе/скрытии
+                PixelFormat.TRANSLUCENT);  // Прозрачный пиксельный формат
+        // WindowManagerOps берёт параметры из View
+        view.setLayoutParams(params);
+        applyHidden();
+    }
+
+    Context getDisplayContext() {
+        return displayContext;
+    }
+
+    int getDisplayId() {
+        return displayId;
+    }
+
+    LockProfile.Renderer getRenderer() {
+        return renderer;
+    }
+
+    View getView() {
+        return view;
+    }
+
+    // Видимое окно принимает касания; FLAG_KEEP_SCREEN_ON — по решению LockPowerPolicy
+    void applyShown(boolean keepScreenOn) {
+        params.flags = WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE   // Окно не перехватывает фокус
+                | WindowManager.LayoutParams.FLAG_NOT_TOUCH_MODAL      // Позволяет получать касания вне окна
+                | WindowManager.LayoutParams.FLAG_FULLSCREEN;          // На весь экран
+        setKeepScreenOn(keepScreenOn);
+        view.setVisibility(View.VISIBLE);
+    }
+
+    // Скрытое окно невидимо и пропускает касания к приложениям под ним
+    void applyHidden() {
+        content.reset();
+        view.setVisibility(View.INVISIBLE);
+        params.flags = WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE
+                | WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE
+                | WindowManager.LayoutParams.FLAG_NOT_TOUCH_MODAL;
+    }
+
+    void setKeepScreenOn(boolean keepScreenOn) {
+        if (keepScreenOn) {
+            params.flags |= WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON;
+        } else {
+            params.flags &= ~WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON;
+        }
+    }
+
+    // Профиль меняет только содержимое: окно не пересоздаётся и не обновляется в WindowManager
+    void applyProfile(LockProfile profile) {
+        content.applyProfile(profile);
+    }
+
+    void setPulseActive(boolean overlayVisible, boolean screenOn) {
+        content.setPulseActive(overlayVisible, screenOn);
+    }
+
+    // Окно убрано насовсем: содержимое отдаёт VelocityTracker и больше не принимает касания
+    void release() {
+        content.release();
+    }
+}
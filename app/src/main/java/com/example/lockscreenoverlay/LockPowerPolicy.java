@@ -0,0 +1,155 @@
+package com.example.lockscreenoverlay;
+
+// Для отложенного снятия FLAG_KEEP_SCREEN_ON
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+// Для вывода счётчиков в dumpsys
+import java.io.PrintWriter;
+
+// Энергопотребление экрана блокировки: FLAG_KEEP_SCREEN_ON держится только заданное время
+// после блокировки или последнего касания, дальше экран гаснет по системному таймауту.
+// Счётчики позволяют оценить, сколько экран был включён из-за оверлея.
+public final class LockPowerPolicy {
+    // Таймаут: -1 — держать экран включённым всё время блокировки, 0 — не держать вообще
+    public static final long KEEP_SCREEN_ON_ALWAYS = -1;
+    // Если профиль не задаёт таймаут: экран не гаснет 5 минут после блокировки или касания
+    public static final long DEFAULT_TIMEOUT_MS = 5 * 60 * 1000;
+
+    // Применяет флаг к окну экрана блокировки
+    public interface KeepScreenOnTarget {
+        void setKeepScreenOn(boolean keepScreenOn);
+    }
+
+    private final KeepScreenOnTarget target;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private long timeoutMs;
+    private boolean locked = false;
+    private boolean screenOn = true;
+    private boolean keepScreenOn = false;
+
+    private long keepScreenOnSinceMillis = 0;  // Когда флаг был выставлен
+    private long keepScreenOnTotalMs = 0;      // Сколько всего флаг держал экран включённым
+    private long lockedScreenOnSinceMillis = 0;
+    private long lockedScreenOnTotalMs = 0;    // Сколько экран был включён при заблокированном оверлее
+    private long timeoutDropCount = 0;         // Сколько раз флаг снят по таймауту
+    private long screenOffCount = 0;
+    private long screenOnCount = 0;
+
+    private final Runnable timeoutTask = new Runnable() {
+        @Override
+        public void run() {
+            timeoutDropCount++;
+            applyKeepScreenOn(false);
+        }
+    };
+
+    public LockPowerPolicy(KeepScreenOnTarget target, long timeoutMs) {
+        this.target = target;
+        this.timeoutMs = timeoutMs;
+    }
+
+    public void setTimeoutMs(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+        if (locked && screenOn) restartTimer();
+    }
+
+    public void onLockShown(boolean interactive) {
+        locked = true;
+        screenOn = interactive;
+        if (screenOn) lockedScreenOnSinceMillis = SystemClock.uptimeMillis();
+        restartTimer();
+    }
+
+    public void onLockHidden() {
+        if (locked && screenOn) {
+            lockedScreenOnTotalMs += SystemClock.uptimeMillis() - lockedScreenOnSinceMillis;
+        }
+        locked = false;
+        handler.removeCallbacks(timeoutTask);
+        applyKeepScreenOn(false);
+    }
+
+    // Касание экрана блокировки продлевает время, пока экран не гаснет
+    public void onUserActivity() {
+        if (locked && screenOn) restartTimer();
+    }
+
+    public void onScreenStateChanged(boolean interactive) {
+        if (interactive == screenOn) return;
+        screenOn = interactive;
+        long now = SystemClock.uptimeMillis();
+        if (interactive) {
+            screenOnCount++;
+            if (locked) {
+                lockedScreenOnSinceMillis = now;
+                // После пробуждения экран снова держится включённым на время таймаута
+                restartTimer();
+            }
+        } else {
+            screenOffCount++;
+            if (locked) {
+                lockedScreenOnTotalMs += now - lockedScreenOnSinceMillis;
+                handler.removeCallbacks(timeoutTask);
+                applyKeepScreenOn(false);
+            }
+        }
+    }
+
+    private void restartTimer() {
+        handler.removeCallbacks(timeoutTask);
+        if (timeoutMs == 0) {
+            applyKeepScreenOn(false);
+            return;
+        }
+        applyKeepScreenOn(true);
+        if (timeoutMs > 0) {
+            handler.postDelayed(timeoutTask, timeoutMs);
+        }
+    }
+
+    private void applyKeepScreenOn(boolean value) {
+        if (keepScreenOn == value) return;
+        long now = SystemClock.uptimeMillis();
+        if (value) {
+            keepScreenOnSinceMillis = now;
+        } else {
+            keepScreenOnTotalMs += now - keepScreenOnSinceMillis;
+        }
+        keepScreenOn = value;
+        target.setKeepScreenOn(value);
+    }
+
+    public long getKeepScreenOnTotalMs() {
+        long total = keepScreenOnTotalMs;
+        if (keepScreenOn) total += SystemClock.uptimeMillis() - keepScreenOnSinceMillis;
+        return total;
+    }
+
+    public long getLockedScreenOnTotalMs() {
+        long total = lockedScreenOnTotalMs;
+        if (locked && screenOn) total += SystemClock.uptimeMillis() - lockedScreenOnSinceMillis;
+        return total;
+    }
+
+    public long getTimeoutDropCount() {
+        return timeoutDropCount;
+    }
+
+    public void dump(PrintWriter pw) {
+        pw.println("power");
+        pw.print("  keep-screen-on timeout: ");
+        pw.println(timeoutMs == KEEP_SCREEN_ON_ALWAYS ? "always" : timeoutMs + "ms");
+        pw.print("  keep-screen-on held: ");
+        pw.print(getKeepScreenOnTotalMs());
+        pw.print("ms, dropped by timeout: ");
+        pw.println(timeoutDropCount);
+        pw.print("  screen on while locked: ");
+        pw.print(getLockedScreenOnTotalMs());
+        pw.print("ms, screen on/off events while locked: ");
+        pw.print(screenOnCount);
+        pw.print('/');
+        pw.println(screenOffCount);
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.lockscreenoverlay;
+
+// Профиль читается из файла формата key=value
+import java.util.Locale;
+import java.util.Properties;
+
+// Неизменяемый профиль экрана блокировки: порог свайпа, затемнение, анимация, удержание экрана,
+// способ разблокировки и тексты. Один экземпляр разделяется всеми окнами, замена профиля —
+// это замена ссылки, поэтому его можно читать с любого потока без блокировок.
+//
+// Файл профилей (lock_profiles.properties в каталоге files приложения):
+//   active=kiosk
+//   kiosk.unlock_distance_dp=220
+//   kiosk.scrim_color=#E0000000
+//   kiosk.animation=false
+//   kiosk.keep_screen_on_timeout_ms=-1
+//   kiosk.unlock_method=swipe
+//   kiosk.message_text=Проведите для разблокировки
+//   kiosk.close_text=Закрыть
+//   kiosk.close_visible=false
+//   kiosk.renderer=canvas
+// Не указанные ключи берутся из профиля по умолчанию.
+public final class LockProfile {
+
+    public enum UnlockMethod {
+        SWIPE_OR_FLING,     // Свайп на всё расстояние или быстрый бросок на часть пути
+        SWIPE               // Только свайп на всё расстояние
+    }
+
+    // Чем рисуется экран блокировки
+    public enum Renderer {
+        LAYOUT,             // Разметка layout_lock_screen.xml (LayoutLockContent)
+        CANVAS              // Одна рисуемая View (LockCanvasView)
+    }
+
+    // Таймаут удержания экрана не задан профилем — действует LockPowerPolicy.DEFAULT_TIMEOUT_MS
+    public static final long TIMEOUT_DEFAULT = Long.MIN_VALUE;
+
+    public static final String KEY_ACTIVE = "active";
+    public static final String DEFAULT_NAME = "default";
+
+    public static final LockProfile DEFAULT = new LockProfile(DEFAULT_NAME,
+            SwipeUnlockEngine.UNLOCK_DISTANCE_DP,
+            0x80000000,                     // Полупрозрачный чёрный, как в layout_lock_screen.xml
+            true,
+            TIMEOUT_DEFAULT,
+            UnlockMethod.SWIPE_OR_FLING,
+            "Разблокировать экран свайпом",
+            "Закрыть приложение",
+            true,
+            Renderer.LAYOUT);
+
+    private final String name;
+    private final float unlockDistanceDp;
+    private final int scrimColor;
+    private final boolean animationEnabled;
+    private final long keepScreenOnTimeoutMs;
+    private final UnlockMethod unlockMethod;
+    private final String messageText;
+    private final String closeText;
+    private final boolean closeVisible;
+    private final Renderer renderer;
+
+    private LockProfile(String name, float unlockDistanceDp, int scrimColor, boolean animationEnabled,
+                        long keepScreenOnTimeoutMs, UnlockMethod unlockMethod,
+                        String messageText, String closeText, boolean closeVisible, Renderer renderer) {
+        this.name = name;
+        this.unlockDistanceDp = unlockDistanceDp;
+        this.scrimColor = scrimColor;
+        this.animationEnabled = animationEnabled;
+        this.keepScreenOnTimeoutMs = keepScreenOnTimeoutMs;
+        this.unlockMethod = unlockMethod;
+        this.messageText = messageText;
+        this.closeText = closeText;
+        this.closeVisible = closeVisible;
+        this.renderer = renderer;
+    }
+
+    // Активный профиль из файла; без ключа active — профиль по умолчанию с переопределениями "default."
+    public static LockProfile fromProperties(Properties properties) {
+        String active = properties.getProperty(KEY_ACTIVE, DEFAULT_NAME).trim();
+        return fromProperties(properties, active, DEFAULT);
+    }
+
+    // Профиль name: ключи "name.*", недостающие — из defaults. Неверное значение — IllegalArgumentException
+    public static LockProfile fromProperties(Properties properties, String name, LockProfile defaults) {
+        String prefix = name + ".";
+        float unlockDistanceDp = parseFloat(properties, prefix + "unlock_distance_dp", defaults.unlockDistanceDp);
+        if (!(unlockDistanceDp > 0f)) {
+            throw new IllegalArgumentException(prefix + "unlock_distance_dp must be positive");
+        }
+        String color = properties.getProperty(prefix + "scrim_color");
+        String method = properties.getProperty(prefix + "unlock_method");
+        String renderer = properties.getProperty(prefix + "renderer");
+        return new LockProfile(name,
+                unlockDistanceDp,
+                color != null ? parseColor(color.trim()) : defaults.scrimColor,
+                parseBoolean(properties, prefix + "animation", defaults.animationEnabled),
+                parseLong(properties, prefix + "keep_screen_on_timeout_ms", defaults.keepScreenOnTimeoutMs),
+                method != null ? UnlockMethod.valueOf(method.trim().toUpperCase(Locale.ROOT)) : defaults.unlockMethod,
+                properties.getProperty(prefix + "message_text", defaults.messageText),
+                properties.getProperty(prefix + "close_text", defaults.closeText),
+                parseBoolean(properties, prefix + "close_visible", defaults.closeVisible),
+                renderer != null ? Renderer.valueOf(renderer.trim().toUpperCase(Locale.ROOT)) : defaults.renderer);
+    }
+
+    // #AARRGGBB или #RRGGBB (непрозрачный)
+    public static int parseColor(String value) {
+        if (!value.startsWith("#") || (value.length() != 7 && value.length() != 9)) {
+            throw new IllegalArgumentException("bad color: " + value);
+        }
+        long argb = Long.parseLong(value.substring(1), 16);
+        if (value.length() == 7) argb |= 0xFF000000L;
+        return (int) argb;
+    }
+
+    private static float parseFloat(Properties properties, String key, float fallback) {
+        String value = properties.getProperty(key);
+        return value != null ? Float.parseFloat(value.trim()) : fallback;
+    }
+
+    private static long parseLong(Properties properties, String key, long fallback) {
+        String value = properties.getProperty(key);
+        return value != null ? Long.parseLong(value.trim()) : fallback;
+    }
+
+    private static boolean parseBoolean(Properties properties, String key, boolean fallback) {
+        String value = properties.getProperty(key);
+        if (value == null) return fallback;
+        value = value.trim();
+        if ("true".equalsIgnoreCase(value)) return true;
+        if ("false".equalsIgnoreCase(value)) return false;
+        throw new IllegalArgumentException("bad boolean " + key + "=" + value);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public float getUnlockDistanceDp() {
+        return unlockDistanceDp;
+    }
+
+    public int getScrimColor() {
+        return scrimColor;
+    }
+
+    public boolean isAnimationEnabled() {
+        return animationEnabled;
+    }
+
+    public boolean hasKeepScreenOnTimeout() {
+        return keepScreenOnTimeoutMs != TIMEOUT_DEFAULT;
+    }
+
+    public long getKeepScreenOnTimeoutMs() {
+        return keepScreenOnTimeoutMs;
+    }
+
+    public UnlockMethod getUnlockMethod() {
+        return unlockMethod;
+    }
+
+    public String getMessageText() {
+        return messageText;
+    }
+
+    public String getCloseText() {
+        return closeText;
+    }
+
+    public boolean isCloseVisible() {
+        return closeVisible;
+    }
+
+    public Renderer getRenderer() {
+        return renderer;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": unlock=" + unlockDistanceDp + "dp " + unlockMethod
+                + " scrim=#" + Integer.toHexString(scrimColor)
+                + " animation=" + animationEnabled
+                + " keepScreenOn=" + (hasKeepScreenOnTimeout() ? keepScreenOnTimeoutMs + "ms" : "default")
+                + " close=" + closeVisible
+                + " renderer=" + renderer;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.lockscreenoverlay;
+
+// Для ошибок чтения источника
+import java.io.IOException;
+import java.io.PrintWriter;
+// Слушатели профиля
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+// Потоки для фонового разбора и уведомления
+import java.util.concurrent.Executor;
+
+// Текущий профиль экрана блокировки. Источник читается и разбирается только в фоновом потоке,
+// готовый неизменяемый LockProfile подменяется целиком и раздаётся слушателям в главном потоке.
+// Хранилище живёт в процессе дольше сервисов: при перезапуске сервиса профиль уже в памяти,
+// а повторное чтение пропускается, пока источник не изменился.
+public final class LockProfileStore {
+
+    // Откуда берутся профили; вызывается только из фонового потока
+    public interface Source {
+        long version();                         // Меняется при изменении источника; NO_SOURCE — источника нет
+        Properties read() throws IOException;
+    }
+
+    public interface Listener {
+        void onProfileChanged(LockProfile profile);
+    }
+
+    public static final long NO_SOURCE = -1;
+
+    private final Source source;
+    private final Executor ioExecutor;      // Фоновый поток для чтения и разбора
+    private final Executor mainExecutor;    // Поток, в котором вызываются слушатели
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile LockProfile profile = LockProfile.DEFAULT;
+    private long loadedVersion = NO_SOURCE;  // Версия источника, из которой получен профиль (фоновый поток)
+    private volatile long loadCount = 0;     // Сколько раз источник действительно разбирался
+    private volatile long swapCount = 0;     // Сколько раз профиль подменялся
+    private volatile long lastParseNanos = 0;
+    private volatile String lastError;       // Ошибка последнего разбора (профиль при ней не меняется)
+
+    public LockProfileStore(Source source, Executor ioExecutor, Executor mainExecutor) {
+        this.source = source;
+        this.ioExecutor = ioExecutor;
+        this.mainExecutor = mainExecutor;
+    }
+
+    public LockProfile getProfile() {
+        return profile;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Перечитывает источник в фоне, если он изменился; новый профиль применяется в главном потоке
+    public void reload() {
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                long version = source.version();
+                if (version == loadedVersion) return;
+                LockProfile loaded;
+                long start = System.nanoTime();
+                try {
+                    loaded = version == NO_SOURCE
+                            ? LockProfile.DEFAULT
+                            : LockProfile.fromProperties(source.read());
+                } catch (IOException | IllegalArgumentException e) {
+                    // Битый файл не должен ломать экран блокировки — остаёмся на прежнем профиле
+                    lastError = e.toString();
+                    return;
+                }
+                lastParseNanos = System.nanoTime() - start;
+                loadCount++;
+                loadedVersion = version;
+                lastError = null;
+                final LockProfile next = loaded;
+                mainExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        swap(next);
+                    }
+                });
+            }
+        });
+    }
+
+    private void swap(LockProfile next) {
+        profile = next;
+        swapCount++;
+        for (Listener listener : listeners) {
+            listener.onProfileChanged(next);
+        }
+    }
+
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    public long getSwapCount() {
+        return swapCount;
+    }
+
+    public void dump(PrintWriter writer) {
+        writer.println("  lock profile: " + profile);
+        writer.println("  profile loads=" + loadCount + " swaps=" + swapCount
+                + " last parse=" + (lastParseNanos / 1_000) + "us"
+                + (lastError != null ? " last error=" + lastError : ""));
+    }
+}
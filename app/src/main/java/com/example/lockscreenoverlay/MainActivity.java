@@ -1,6 +1,8 @@
 package com.example.lockscreenoverlay;
 
+import android.Manifest;  // Для имени разрешения на уведомления
 import android.content.Intent;  // Для работы с Intent - запуска активностей и сервисов
+import android.content.pm.PackageManager;  // Для результата проверки разрешения
 import android.net.Uri;  // Для работы с Uri, например, для перехода в настройки
 import android.os.Build;  // Для проверки версии Android
 import android.provider.Settings;  // Для доступа к системным настройкам
@@ -11,17 +13,30 @@ import androidx.appcompat.app.AppCompatActivity;  // Базовый класс 
 public class MainActivity extends AppCompatActivity {
     // Константа запроса разрешения показывать поверх других приложений
     private static final int REQUEST_CODE_OVERLAY = 1000;
+    // Константа запроса разрешения на уведомления (Android 13+)
+    private static final int REQUEST_CODE_NOTIFICATIONS = 1001;
+    // Диалог разрешения на уведомления открыт — onResume не должен закрывать активность
+    private boolean requestingNotifications = false;
+
+    // Без разрешения на Android 13+ уведомление foreground-сервиса не показывается.
+    // Спрашиваем один раз: после отказа кнопка просто работает без уведомления
+    private boolean shouldAskNotificationPermission() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                && checkSelfPermission(Manifest.permission.POST_NOTIFICATIONS) != PackageManager.PERMISSION_GRANTED
+                && !OverlayPrefs.isNotificationPermissionAsked(this);
+    }
+
     // Метод жизненного цикла, вызываемый при создании активности
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         // Вызываем метод родителя для стандартной инициализации
         super.onCreate(savedInstanceState);
-        // Устанавливаем разметку главного экрана из XML
-        setContentView(R.layout.activity_main);
         // Проверяем, что версия Android 6.0 (API 23) и выше, где требуется явное разрешение на оверлей
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
             // Проверяем, есть ли у приложения разрешение показывать окна поверх других приложений
             if (!Settings.canDrawOverlays(this)){
+                // Разметка нужна только для экрана запроса разрешения
+                setContentView(R.layout.activity_main);
                 // Если разрешение отсутствует, показываем уведомление с просьбой разрешить оверлей
                 Toast.makeText(this,
                         "Для работы блокировки экрана нужно разрешение 'Показывать поверх других приложений'. " +
@@ -36,9 +51,7 @@ public class MainActivity extends AppCompatActivity {
 
             } else {
                 // Если разрешение уже есть, запускаем сервис с плавающей кнопкой
-                startFloatButtonService();
-                // Завершаем MainActivity, чтобы не мешала
-                finish();
+                startServiceAndFinish();
             }
         } else {
             // Для Android ниже 6.0 разрешение не требуется, сразу запускаем сервис
@@ -58,9 +71,7 @@ public class MainActivity extends AppCompatActivity {
                 // Если разрешение получено - запускаем сервис и уведомляем пользователя
                 if (Settings.canDrawOverlays(this)){
                     Toast.makeText(this,"Разрешение получено",Toast.LENGTH_SHORT).show();
-                    startFloatButtonService();
-                    // Завершаем MainActivity
-                    finish();
+                    startServiceAndFinish();
 
                 } else {
                     // Если разрешение не предоставлено — предупреждаем, что функционал не будет работать
@@ -76,17 +87,42 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onResume() {
         super.onResume();
+        // Активность уже закрывается после onActivityResult — сервис там уже запущен
+        if (isFinishing() || requestingNotifications) return;
         // Проверяем версию и наличие разрешения при возврате в активность
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
             if (Settings.canDrawOverlays(this)) {
                 // Запускаем сервис с плавающей кнопкой если разрешение есть
-                startFloatButtonService();
-                finish();
+                startServiceAndFinish();
             }
         }
     }
+    // Запускает сервис и закрывает активность; на Android 13+ сначала спрашивает разрешение на уведомления
+    private void startServiceAndFinish() {
+        if (requestingNotifications) return;
+        if (shouldAskNotificationPermission()) {
+            requestingNotifications = true;
+            OverlayPrefs.setNotificationPermissionAsked(this);
+            requestPermissions(new String[]{Manifest.permission.POST_NOTIFICATIONS}, REQUEST_CODE_NOTIFICATIONS);
+            return;
+        }
+        startFloatButtonService();
+        finish();
+    }
+    // Результат запроса разрешения на уведомления: кнопка работает и без него, только без уведомления
+    @Override
+    public void onRequestPermissionsResult(int requestCode, String[] permissions, int[] grantResults) {
+        super.onRequestPermissionsResult(requestCode, permissions, grantResults);
+        if (requestCode == REQUEST_CODE_NOTIFICATIONS) {
+            requestingNotifications = false;
+            startFloatButtonService();
+            finish();
+        }
+    }
     // Метод для запуска сервиса с плавающей кнопкой блокировки
     private void startFloatButtonService() {
+        // onCreate, onActivityResult и onResume могут сработать подряд — запускаем сервис один раз
+        if (FloatButtonService.isRunning()) return;
         // Создаем Intent сервиса плавающей кнопки
         Intent intent = new Intent(this, FloatButtonService.class);
         // Запускаем сервис
@@ -0,0 +1,168 @@
+package com.example.lockscreenoverlay;
+
+// Контекст приложения и контексты дисплеев
+import android.content.Context;
+// Для перечисления дисплеев и отслеживания их подключения
+import android.hardware.display.DisplayManager;
+// Для выбора контекста окна по версии Android
+import android.os.Build;
+// Обработчик главного потока для событий DisplayManager
+import android.os.Handler;
+import android.os.Looper;
+// Контексты по идентификатору дисплея
+import android.util.SparseArray;
+// Описание дисплея
+import android.view.Display;
+// Базовый класс для View элементов UI
+import android.view.View;
+// Для операций с окнами на конкретном дисплее
+import android.view.WindowManager;
+
+// Список подписчиков, безопасный к отписке прямо во время рассылки
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Общие для всего процесса публичные дисплеи и единый OverlayScheduler их окон.
+// Экран блокировки и плавающая кнопка получают отсюда контекст каждого дисплея и ставят свои
+// добавления, обновления и удаления в одну очередь, поэтому переход состояния, который скрывает
+// кнопки и показывает экран блокировки на N дисплеях, — один проход по WindowManager.
+public final class OverlayDisplays {
+
+    // Подписчик узнаёт о каждом дисплее: сначала об уже подключённых, затем о новых
+    public interface Listener {
+        void onDisplayAdded(int displayId, Context displayContext);
+        void onDisplayRemoved(int displayId);
+    }
+
+    // Операции WindowManager для контекста дисплея (в тестах — счётчики вместо WindowManager)
+    public interface OpsFactory {
+        OverlayScheduler.WindowOps<View> create(Context displayContext);
+    }
+
+    private static OverlayDisplays instance;
+
+    public static OverlayDisplays get(Context context) {
+        if (instance == null) {
+            instance = new OverlayDisplays(context.getApplicationContext(), new OpsFactory() {
+                @Override
+                public OverlayScheduler.WindowOps<View> create(Context displayContext) {
+                    return new WindowManagerOps(
+                            (WindowManager) displayContext.getSystemService(Context.WINDOW_SERVICE));
+                }
+            });
+            // Переход состояния скрывает кнопки и показывает экран блокировки одним проходом
+            final OverlayScheduler<View> scheduler = instance.scheduler;
+            OverlayStateMachine.get().setDispatchBatch(new OverlayStateMachine.DispatchBatch() {
+                @Override
+                public void begin() {
+                    scheduler.beginBatch();
+                }
+
+                @Override
+                public void end() {
+                    scheduler.endBatch();
+                }
+            });
+        }
+        return instance;
+    }
+
+    // Тесты забывают экземпляр вместе с контекстом приложения; пакет рассылки сбрасывает
+    // OverlayStateMachine.resetForTest()
+    static void resetForTest() {
+        instance = null;
+    }
+
+    private final Context appContext;
+    private final DisplayManager displayManager;
+    private final OpsFactory opsFactory;
+    private final OverlayScheduler<View> scheduler = new OverlayScheduler<>();
+    private final SparseArray<Context> contexts = new SparseArray<>();  // Контекст каждого публичного дисплея
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private boolean tracking = false;   // Дисплеи перечислены, DisplayListener зарегистрирован
+
+    private final DisplayManager.DisplayListener displayListener = new DisplayManager.DisplayListener() {
+        @Override
+        public void onDisplayAdded(int displayId) {
+            Display display = displayManager.getDisplay(displayId);
+            if (display == null || !addDisplay(display)) return;
+            Context displayContext = contexts.get(displayId);
+            for (Listener listener : listeners) {
+                listener.onDisplayAdded(displayId, displayContext);
+            }
+            // Окна всех владельцев на новом дисплее добавляются одним проходом
+            scheduler.flush();
+        }
+
+        @Override
+        public void onDisplayRemoved(int displayId) {
+            if (contexts.get(displayId) == null) return;
+            // Окна отключённого дисплея система убирает сама
+            for (Listener listener : listeners) {
+                listener.onDisplayRemoved(displayId);
+            }
+            contexts.remove(displayId);
+            scheduler.unregisterDisplay(displayId);
+        }
+
+        @Override
+        public void onDisplayChanged(int displayId) {
+            // Размеры окон подгоняет система, позиции кнопок — их владельцы по конфигурации
+        }
+    };
+
+    OverlayDisplays(Context appContext, OpsFactory opsFactory) {
+        this.appContext = appContext;
+        this.displayManager = (DisplayManager) appContext.getSystemService(Context.DISPLAY_SERVICE);
+        this.opsFactory = opsFactory;
+    }
+
+    public OverlayScheduler<View> getScheduler() {
+        return scheduler;
+    }
+
+    // Подписывает и сразу сообщает об уже подключённых дисплеях; их окна добавляются одним проходом
+    public void addListener(Listener listener) {
+        if (!listeners.addIfAbsent(listener)) return;
+        if (!tracking) {
+            tracking = true;
+            for (Display display : displayManager.getDisplays()) {
+                addDisplay(display);
+            }
+            displayManager.registerDisplayListener(displayListener, new Handler(Looper.getMainLooper()));
+        }
+        for (int i = 0; i < contexts.size(); i++) {
+            listener.onDisplayAdded(contexts.keyAt(i), contexts.valueAt(i));
+        }
+        scheduler.flush();
+    }
+
+    // Без подписчиков дисплеи не отслеживаются; окна подписчик убирает сам до отписки
+    public void removeListener(Listener listener) {
+        if (!listeners.remove(listener) || !listeners.isEmpty()) return;
+        tracking = false;
+        displayManager.unregisterDisplayListener(displayListener);
+        for (int i = 0; i < contexts.size(); i++) {
+            scheduler.unregisterDisplay(contexts.keyAt(i));
+        }
+        contexts.clear();
+    }
+
+    // Создаёт контекст окон дисплея и регистрирует его WindowManager в планировщике
+    private boolean addDisplay(Display display) {
+        int displayId = display.getDisplayId();
+        // Приватные дисплеи (виртуальные экраны других приложений) не трогаем
+        if (contexts.get(displayId) != null || (display.getFlags() & Display.FLAG_PRIVATE) != 0) {
+            return false;
+        }
+        Context displayContext;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            displayContext = appContext.createWindowContext(display,
+                    WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY, null);
+        } else {
+            displayContext = appContext.createDisplayContext(display);
+        }
+        contexts.put(displayId, displayContext);
+        scheduler.registerDisplay(displayId, opsFactory.create(displayContext));
+        return true;
+    }
+}
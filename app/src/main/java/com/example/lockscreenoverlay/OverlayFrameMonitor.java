@@ -0,0 +1,137 @@
+package com.example.lockscreenoverlay;
+
+// Для доступа к параметрам дисплея
+import android.content.Context;
+import android.hardware.display.DisplayManager;
+// Для сброса метки кадра после его завершения
+import android.os.Handler;
+import android.os.Looper;
+// Для перевода времени событий касания в общую шкалу
+import android.os.SystemClock;
+// Для получения частоты обновления экрана
+import android.view.Choreographer;
+import android.view.Display;
+// Базовый класс для View элементов UI
+import android.view.View;
+// Для отслеживания отрисовки окна
+import android.view.ViewTreeObserver;
+
+// Для вывода статистики в dumpsys
+import java.io.PrintWriter;
+
+// Статистика кадров окна-оверлея. У окон, добавленных через WindowManager, нет объекта Window,
+// поэтому вместо OnFrameMetricsAvailableListener используется связка Choreographer + OnDrawListener:
+// длительность кадра — от vsync до отрисовки окна в том же кадре.
+// Callback Choreographer переподписывается только после отрисовки, так что в простое монитор не будит процессор.
+public final class OverlayFrameMonitor implements Choreographer.FrameCallback, ViewTreeObserver.OnDrawListener {
+    private final String name;
+    private final FrameStats frameStats;   // Длительность кадров
+    private final FrameStats inputStats;   // Задержка «касание -> обновление окна»
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private long vsyncNanos = 0;           // Время vsync текущего кадра (0 — кадр уже завершён)
+    private boolean callbackPosted = false;
+    private long pendingInputNanos = 0;    // Самое раннее касание, ещё не отражённое на экране
+    private long sessionStartMillis = SystemClock.uptimeMillis();
+
+    // Выполняется после всех этапов кадра: отрисовка в этом кадре уже прошла
+    private final Runnable endOfFrame = new Runnable() {
+        @Override
+        public void run() {
+            vsyncNanos = 0;
+        }
+    };
+
+    public OverlayFrameMonitor(Context context, String name) {
+        this.name = name;
+        long periodNanos = refreshPeriodNanos(context);
+        this.frameStats = new FrameStats("frames", periodNanos);
+        // Касание должно появиться на экране не позже чем через два кадра
+        this.inputStats = new FrameStats("input-to-frame", periodNanos * 2);
+    }
+
+    public void attach(View view) {
+        view.getViewTreeObserver().addOnDrawListener(this);
+    }
+
+    public void detach(View view) {
+        view.getViewTreeObserver().removeOnDrawListener(this);
+        if (callbackPosted) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            callbackPosted = false;
+        }
+        vsyncNanos = 0;
+        pendingInputNanos = 0;
+    }
+
+    // Касание (eventTime в шкале uptimeMillis), результат которого ждём в ближайшем кадре
+    public void markInput(long eventTimeMillis) {
+        if (pendingInputNanos != 0) return;
+        long sinceEventMillis = SystemClock.uptimeMillis() - eventTimeMillis;
+        pendingInputNanos = System.nanoTime() - sinceEventMillis * 1_000_000L;
+        postCallback();
+    }
+
+    // Содержимое окна обновлено без перерисовки (например, окно только сдвинули)
+    public void onContentUpdated() {
+        if (pendingInputNanos != 0) {
+            inputStats.record(System.nanoTime() - pendingInputNanos);
+            pendingInputNanos = 0;
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        callbackPosted = false;
+        vsyncNanos = frameTimeNanos;
+        handler.post(endOfFrame);
+    }
+
+    @Override
+    public void onDraw() {
+        long now = System.nanoTime();
+        if (vsyncNanos != 0) {
+            frameStats.record(now - vsyncNanos);
+            vsyncNanos = 0;
+        }
+        onContentUpdated();
+        // Ловим vsync следующего кадра, пока окно продолжает перерисовываться
+        postCallback();
+    }
+
+    public FrameStats getFrameStats() {
+        return frameStats;
+    }
+
+    public FrameStats getInputStats() {
+        return inputStats;
+    }
+
+    public void reset() {
+        frameStats.reset();
+        inputStats.reset();
+        sessionStartMillis = SystemClock.uptimeMillis();
+    }
+
+    public void dump(PrintWriter pw) {
+        pw.print(name);
+        pw.print(" (session ");
+        pw.print((SystemClock.uptimeMillis() - sessionStartMillis) / 1000);
+        pw.println("s)");
+        frameStats.dump(pw, "  ");
+        inputStats.dump(pw, "  ");
+    }
+
+    private void postCallback() {
+        if (!callbackPosted) {
+            callbackPosted = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    private static long refreshPeriodNanos(Context context) {
+        DisplayManager displayManager = (DisplayManager) context.getSystemService(Context.DISPLAY_SERVICE);
+        Display display = displayManager.getDisplay(Display.DEFAULT_DISPLAY);
+        float refreshRate = display != null ? display.getRefreshRate() : 60f;
+        return (long) (1_000_000_000L / refreshRate);
+    }
+}
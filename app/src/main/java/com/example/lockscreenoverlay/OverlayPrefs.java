@@ -0,0 +1,75 @@
+package com.example.lockscreenoverlay;
+
+// Для доступа к SharedPreferences
+import android.content.Context;
+import android.content.SharedPreferences;
+
+// Настройки режима работы оверлеев и последнее состояние для восстановления после перезапуска процесса
+public final class OverlayPrefs {
+    private static final String PREFS_NAME = "overlay_prefs";
+    private static final String KEY_FOREGROUND = "foreground_mode";
+    private static final String KEY_LAST_STATE = "last_state";
+    private static final String KEY_NOTIFICATIONS_ASKED = "notification_permission_asked";
+
+    private OverlayPrefs() {
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    // Постоянный foreground-режим с уведомлением (по умолчанию включён).
+    // Режим и последнее состояние читаются и пишутся через OverlayStateStore в фоновом потоке
+    public static boolean isForegroundMode(Context context) {
+        return prefs(context).getBoolean(KEY_FOREGROUND, true);
+    }
+
+    // Разрешение на уведомления уже спрашивали; читается только в MainActivity, не на пути запуска
+    public static boolean isNotificationPermissionAsked(Context context) {
+        return prefs(context).getBoolean(KEY_NOTIFICATIONS_ASKED, false);
+    }
+
+    public static void setNotificationPermissionAsked(Context context) {
+        prefs(context).edit().putBoolean(KEY_NOTIFICATIONS_ASKED, true).apply();
+    }
+
+    // Последнее состояние; CLOSED после корректного закрытия, UNLOCKED если ничего не сохранено
+    public static OverlayStateMachine.State loadLastState(Context context) {
+        String name = prefs(context).getString(KEY_LAST_STATE, null);
+        if (name == null) return OverlayStateMachine.State.UNLOCKED;
+        try {
+            return OverlayStateMachine.State.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return OverlayStateMachine.State.UNLOCKED;
+        }
+    }
+
+    // Уже в фоновом потоке OverlayStateStore, поэтому пишем синхронно
+    public static void saveState(Context context, OverlayStateMachine.State lastState, boolean foregroundMode) {
+        prefs(context).edit()
+                .putString(KEY_LAST_STATE, lastState.name())
+                .putBoolean(KEY_FOREGROUND, foregroundMode)
+                .commit();
+    }
+
+    // Хранилище для OverlayStateStore поверх этих настроек
+    public static OverlayStateStore.Backend stateBackend(Context context) {
+        final Context appContext = context.getApplicationContext();
+        return new OverlayStateStore.Backend() {
+            @Override
+            public OverlayStateMachine.State readLastState() {
+                return loadLastState(appContext);
+            }
+
+            @Override
+            public boolean readForegroundMode() {
+                return isForegroundMode(appContext);
+            }
+
+            @Override
+            public void write(OverlayStateMachine.State lastState, boolean foregroundMode) {
+                saveState(appContext, lastState, foregroundMode);
+            }
+        };
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.lockscreenoverlay;
+
+// Коллекции для очереди операций и дисплеев
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+// Планировщик операций с окнами на всех дисплеях. Добавление, обновление и удаление окон копятся
+// и выполняются одним проходом в flush(); лишние операции над одним окном схлопываются
+// (например, несколько обновлений — в одно, добавление и удаление до прохода — в ничто).
+// Через него идут и окна экрана блокировки, и плавающая кнопка, включая её перетаскивание,
+// поэтому очередь после прогрева ничего не выделяет: записи операций переиспользуются.
+public final class OverlayScheduler<V> {
+
+    // Операции WindowManager конкретного дисплея; add возвращает false, если окно не добавлено
+    // (нет разрешения на оверлей, дисплей уже отключён и т. п.)
+    public interface WindowOps<V> {
+        boolean add(V view);
+        void update(V view);
+        void remove(V view);
+    }
+
+    // Итог добавления окна — сообщается в проходе, когда WindowManager ответил
+    public interface AddListener<V> {
+        void onAddResult(V view, boolean added);
+    }
+
+    private static final int OP_ADD = 1;
+    private static final int OP_UPDATE = 2;
+    private static final int OP_REMOVE = 3;
+
+    private static final class Pending<V> {
+        V view;
+        int displayId;
+        int op;
+        AddListener<V> addListener;     // Ждёт итога добавления (и после схлопывания в обновление)
+    }
+
+    private final Map<Integer, WindowOps<V>> displays = new HashMap<>();
+    // Порядок постановки сохраняется, чтобы окна добавлялись в том порядке, в котором их запросили.
+    // Окон единицы, поэтому поиск линейный (сравнение через equals, как в Map)
+    private final ArrayList<Pending<V>> pending = new ArrayList<>();
+    private final ArrayList<Pending<V>> free = new ArrayList<>();
+    private int batchDepth = 0;           // Вложенность beginBatch()/endBatch()
+    private boolean flushDeferred = false; // flush() внутри пакета — выполнится в endBatch()
+    private long passCount = 0;   // Сколько проходов выполнено
+    private long opCount = 0;     // Сколько операций реально отправлено в WindowManager
+
+    public void registerDisplay(int displayId, WindowOps<V> ops) {
+        displays.put(displayId, ops);
+    }
+
+    // Дисплей отключён: его окна система уже убрала, незавершённые операции для него отбрасываем
+    public void unregisterDisplay(int displayId) {
+        displays.remove(displayId);
+        for (int i = pending.size() - 1; i >= 0; i--) {
+            Pending<V> op = pending.get(i);
+            if (op.displayId != displayId) continue;
+            pending.remove(i);
+            // Ожидающий добавления узнаёт, что окна на экране не будет
+            if (op.addListener != null) op.addListener.onAddResult(op.view, false);
+            recycle(op);
+        }
+    }
+
+    public boolean hasDisplay(int displayId) {
+        return displays.containsKey(displayId);
+    }
+
+    public void scheduleAdd(int displayId, V view) {
+        scheduleAdd(displayId, view, null);
+    }
+
+    // Добавление с итогом: addListener узнает в проходе, добавил ли WindowManager окно
+    public void scheduleAdd(int displayId, V view, AddListener<V> addListener) {
+        Pending<V> existing = find(view);
+        if (existing == null) {
+            enqueue(displayId, view, OP_ADD).addListener = addListener;
+        } else if (existing.op == OP_REMOVE) {
+            // Удалить и снова добавить то же окно — достаточно обновить параметры; окно так и не
+            // покидало WindowManager, поэтому после обновления добавление считается успешным
+            existing.op = OP_UPDATE;
+            existing.addListener = addListener;
+        }
+    }
+
+    public void scheduleUpdate(int displayId, V view) {
+        Pending<V> existing = find(view);
+        if (existing == null) {
+            enqueue(displayId, view, OP_UPDATE);
+        }
+        // Добавление и так применит текущие параметры, повторное обновление не нужно
+    }
+
+    public void scheduleRemove(int displayId, V view) {
+        Pending<V> existing = find(view);
+        if (existing == null) {
+            enqueue(displayId, view, OP_REMOVE);
+        } else if (existing.op == OP_ADD) {
+            // Окно ещё не добавлено — ничего делать не нужно
+            pending.remove(existing);
+            recycle(existing);
+        } else {
+            existing.op = OP_REMOVE;
+            existing.addListener = null;
+        }
+    }
+
+    public boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    // Всё, что запланировано до endBatch(), включая flush() разных владельцев окон, выполнится одним
+    // проходом (например, скрытие кнопок и показ экрана блокировки при одном переходе состояния)
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    public void endBatch() {
+        if (batchDepth == 0) return;
+        batchDepth--;
+        if (batchDepth == 0 && flushDeferred) {
+            flushDeferred = false;
+            flush();
+        }
+    }
+
+    // Выполняет все накопленные операции одним проходом; возвращает их количество
+    // (0 внутри пакета — проход выполнит endBatch())
+    public int flush() {
+        if (pending.isEmpty()) return 0;
+        if (batchDepth > 0) {
+            flushDeferred = true;
+            return 0;
+        }
+        passCount++;
+        int executed = 0;
+        // Запись снимается с очереди до выполнения: операция, запланированная из обратного вызова
+        // во время прохода, выполнится в этом же проходе
+        while (!pending.isEmpty()) {
+            Pending<V> op = pending.remove(0);
+            WindowOps<V> ops = displays.get(op.displayId);
+            if (ops == null) {
+                if (op.addListener != null) op.addListener.onAddResult(op.view, false);
+            } else {
+                switch (op.op) {
+                    case OP_ADD: {
+                        boolean added = ops.add(op.view);
+                        if (op.addListener != null) op.addListener.onAddResult(op.view, added);
+                        break;
+                    }
+                    case OP_UPDATE:
+                        ops.update(op.view);
+                        if (op.addListener != null) op.addListener.onAddResult(op.view, true);
+                        break;
+                    case OP_REMOVE:
+                        ops.remove(op.view);
+                        break;
+                }
+                executed++;
+            }
+            recycle(op);
+        }
+        opCount += executed;
+        return executed;
+    }
+
+    public long getPassCount() {
+        return passCount;
+    }
+
+    public long getOpCount() {
+        return opCount;
+    }
+
+    private Pending<V> find(V view) {
+        for (int i = 0; i < pending.size(); i++) {
+            Pending<V> op = pending.get(i);
+            if (op.view.equals(view)) return op;
+        }
+        return null;
+    }
+
+    private Pending<V> enqueue(int displayId, V view, int opCode) {
+        Pending<V> op = free.isEmpty() ? new Pending<V>() : free.remove(free.size() - 1);
+        op.view = view;
+        op.displayId = displayId;
+        op.op = opCode;
+        pending.add(op);
+        return op;
+    }
+
+    private void recycle(Pending<V> op) {
+        op.view = null;
+        op.addListener = null;
+        free.add(op);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.lockscreenoverlay;
+
+// Список подписчиков, безопасный к отписке прямо во время рассылки
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Внутрипроцессная шина состояний оверлеев. Сервисы подписываются напрямую,
+// поэтому блокировка и разблокировка не проходят через системные broadcast'ы.
+// Все вызовы выполняются в главном потоке.
+public final class OverlayStateMachine {
+
+    public enum State {
+        UNLOCKED,   // Экран разблокирован, плавающая кнопка показана
+        LOCKED,     // Экран блокировки показан, кнопка скрыта
+        CLOSED      // Приложение закрывается, все оверлеи убраны
+    }
+
+    public interface Listener {
+        void onStateChanged(State from, State to);
+    }
+
+    // Обрамляет рассылку одного перехода: OverlayDisplays выполняет операции с окнами,
+    // запланированные всеми подписчиками, одним проходом в end()
+    public interface DispatchBatch {
+        void begin();
+        void end();
+    }
+
+    private static final OverlayStateMachine INSTANCE = new OverlayStateMachine();
+
+    public static OverlayStateMachine get() {
+        return INSTANCE;
+    }
+
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private State state = State.UNLOCKED;
+    private DispatchBatch dispatchBatch;
+
+    private long transitionCount = 0;       // Сколько переходов выполнено
+    private long duplicateCount = 0;        // Сколько повторных запросов того же состояния отброшено
+    private long lastDispatchNanos = 0;     // Время рассылки последнего перехода всем подписчикам
+
+    OverlayStateMachine() {
+    }
+
+    public void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public void setDispatchBatch(DispatchBatch dispatchBatch) {
+        this.dispatchBatch = dispatchBatch;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    // Переводит в новое состояние; повтор текущего состояния игнорируется.
+    // Возвращает true, если переход действительно произошёл
+    public boolean moveTo(State target) {
+        if (target == state) {
+            duplicateCount++;
+            return false;
+        }
+        State from = state;
+        state = target;
+        transitionCount++;
+        long start = System.nanoTime();
+        if (dispatchBatch != null) dispatchBatch.begin();
+        try {
+            for (Listener listener : listeners) {
+                listener.onStateChanged(from, target);
+            }
+        } finally {
+            if (dispatchBatch != null) dispatchBatch.end();
+        }
+        lastDispatchNanos = System.nanoTime() - start;
+        return true;
+    }
+
+    public long getTransitionCount() {
+        return transitionCount;
+    }
+
+    public long getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    public long getLastDispatchNanos() {
+        return lastDispatchNanos;
+    }
+
+    // Тесты возвращают общий экземпляр в начальное состояние: без подписчиков и пакета рассылки
+    static void resetForTest() {
+        INSTANCE.listeners.clear();
+        INSTANCE.state = State.UNLOCKED;
+        INSTANCE.dispatchBatch = null;
+        INSTANCE.transitionCount = 0;
+        INSTANCE.duplicateCount = 0;
+        INSTANCE.lastDispatchNanos = 0;
+    }
+}
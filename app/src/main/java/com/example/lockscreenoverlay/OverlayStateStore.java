@@ -0,0 +1,151 @@
+package com.example.lockscreenoverlay;
+
+// Потоки для фоновой загрузки и отложенной записи
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Последнее состояние оверлеев и режим foreground-сервиса в памяти с фоновым хранением на диске.
+// Устроено как PositionStore: загрузка один раз в фоне, запись откладывается и объединяется,
+// так что блокировка и разблокировка не пишут SharedPreferences из главного потока.
+public final class OverlayStateStore {
+    // Задержка записи: блокировка и быстрая разблокировка попадут на диск одной записью
+    public static final long WRITE_DELAY_MS = 500;
+
+    // Постоянное хранилище; вызывается только из фонового потока
+    public interface Backend {
+        OverlayStateMachine.State readLastState();
+        boolean readForegroundMode();
+        void write(OverlayStateMachine.State lastState, boolean foregroundMode);
+    }
+
+    public interface LoadListener {
+        void onStateLoaded(OverlayStateMachine.State lastState, boolean foregroundMode);
+    }
+
+    private final Backend backend;
+    private final ScheduledExecutorService ioExecutor;  // Фоновый поток для диска
+    private final Executor mainExecutor;                // Поток, в котором вызывается LoadListener
+    private final Object lock = new Object();
+    private OverlayStateMachine.State lastState = OverlayStateMachine.State.UNLOCKED;
+    private boolean foregroundMode = true;
+    private boolean lastStateChanged = false;           // Изменено до окончания загрузки — диск старше
+    private boolean foregroundModeChanged = false;
+    private boolean loaded = false;
+    private boolean writeScheduled = false;
+    private ScheduledFuture<?> pendingWrite;           // Запланированная отложенная запись
+    private long writeCount = 0;
+
+    private final Runnable writeTask = new Runnable() {
+        @Override
+        public void run() {
+            OverlayStateMachine.State state;
+            boolean foreground;
+            synchronized (lock) {
+                writeScheduled = false;
+                state = lastState;
+                foreground = foregroundMode;
+            }
+            backend.write(state, foreground);
+            synchronized (lock) {
+                writeCount++;
+            }
+        }
+    };
+
+    public OverlayStateStore(Backend backend, ScheduledExecutorService ioExecutor, Executor mainExecutor) {
+        this.backend = backend;
+        this.ioExecutor = ioExecutor;
+        this.mainExecutor = mainExecutor;
+    }
+
+    // Загружает сохранённые значения в фоне; listener вызывается в mainExecutor после загрузки
+    public void load(final LoadListener listener) {
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                OverlayStateMachine.State storedState = backend.readLastState();
+                boolean storedForeground = backend.readForegroundMode();
+                final OverlayStateMachine.State state;
+                final boolean foreground;
+                synchronized (lock) {
+                    // Значения, заданные до окончания загрузки, новее сохранённых на диске
+                    if (!lastStateChanged) lastState = storedState;
+                    if (!foregroundModeChanged) foregroundMode = storedForeground;
+                    loaded = true;
+                    state = lastState;
+                    foreground = foregroundMode;
+                }
+                if (listener != null) {
+                    mainExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            listener.onStateLoaded(state, foreground);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    public boolean isLoaded() {
+        synchronized (lock) {
+            return loaded;
+        }
+    }
+
+    public OverlayStateMachine.State getLastState() {
+        synchronized (lock) {
+            return lastState;
+        }
+    }
+
+    public boolean isForegroundMode() {
+        synchronized (lock) {
+            return foregroundMode;
+        }
+    }
+
+    // Запоминает состояние в памяти и планирует отложенную запись на диск
+    public void setLastState(OverlayStateMachine.State state) {
+        synchronized (lock) {
+            lastStateChanged = true;
+            // До загрузки неизвестно, что лежит на диске, поэтому записываем в любом случае
+            if (loaded && lastState == state) return;
+            lastState = state;
+            scheduleWriteLocked();
+        }
+    }
+
+    public void setForegroundMode(boolean enabled) {
+        synchronized (lock) {
+            foregroundModeChanged = true;
+            if (loaded && foregroundMode == enabled) return;
+            foregroundMode = enabled;
+            scheduleWriteLocked();
+        }
+    }
+
+    private void scheduleWriteLocked() {
+        if (writeScheduled) return;
+        writeScheduled = true;
+        pendingWrite = ioExecutor.schedule(writeTask, WRITE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Записывает несохранённые изменения без задержки и завершает фоновый поток
+    public void close() {
+        synchronized (lock) {
+            if (writeScheduled && pendingWrite.cancel(false)) {
+                ioExecutor.execute(writeTask);
+            }
+        }
+        ioExecutor.shutdown();
+    }
+
+    public long getWriteCount() {
+        synchronized (lock) {
+            return writeCount;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.lockscreenoverlay;
+
+// Окно, которое создаётся один раз и дальше только добавляется в WindowManager и убирается из него.
+// View, её drawable и параметры окна живут столько же, сколько сервис, поэтому показ и скрытие
+// не инфлейтят разметку и ничего не выделяют. Счётчики показывают, сколько раз окно создавалось.
+// Добавление и удаление ставятся в общий OverlayScheduler своего дисплея и выполняются его flush(),
+// так что окна нескольких дисплеев показываются и скрываются одним проходом.
+// Добавленным окно считается только после того, как WindowManager его принял.
+public final class PooledWindow<V> {
+
+    // Создаёт View окна вместе с параметрами (через setLayoutParams); вызывается один раз
+    public interface Factory<V> {
+        V create();
+    }
+
+    // Подписки, которые живут только пока окно добавлено (наблюдатели ViewTreeObserver и т. п.)
+    public interface AttachListener<V> {
+        void onAttached(V view);
+        void onDetached(V view);
+    }
+
+    private final Factory<V> factory;
+    private final OverlayScheduler<V> scheduler;
+    private final int displayId;
+    private AttachListener<V> attachListener;
+    private V view;
+    private boolean attached = false;       // WindowManager принял окно
+    private boolean attachPending = false;  // Добавление запланировано, прохода ещё не было
+    private long createCount = 0;   // Сколько раз View создавалась (инфлейт и новые параметры)
+    private long attachCount = 0;
+    private long detachCount = 0;
+    private long attachFailCount = 0;   // Сколько раз WindowManager отказал в добавлении
+
+    // Итог добавления из прохода планировщика
+    private final OverlayScheduler.AddListener<V> addListener = new OverlayScheduler.AddListener<V>() {
+        @Override
+        public void onAddResult(V window, boolean added) {
+            // Окно успели убрать или забыть до прохода
+            if (!attachPending || window != view) return;
+            attachPending = false;
+            if (!added) {
+                attachFailCount++;
+                return;
+            }
+            attached = true;
+            attachCount++;
+            if (attachListener != null) attachListener.onAttached(window);
+        }
+    };
+
+    public PooledWindow(Factory<V> factory, OverlayScheduler<V> scheduler, int displayId) {
+        this.factory = factory;
+        this.scheduler = scheduler;
+        this.displayId = displayId;
+    }
+
+    public int getDisplayId() {
+        return displayId;
+    }
+
+    public void setAttachListener(AttachListener<V> attachListener) {
+        this.attachListener = attachListener;
+    }
+
+    // View окна; создаётся при первом обращении — его можно сделать заранее, до первого показа
+    public V get() {
+        if (view == null) {
+            view = factory.create();
+            createCount++;
+        }
+        return view;
+    }
+
+    public boolean isAttached() {
+        return attached;
+    }
+
+    public boolean isAttachPending() {
+        return attachPending;
+    }
+
+    // Планирует добавление окна; false — оно уже добавлено или ждёт прохода.
+    // attached и onAttached — только когда WindowManager принял окно
+    public boolean attach() {
+        if (attached || attachPending) return false;
+        attachPending = true;
+        scheduler.scheduleAdd(displayId, get(), addListener);
+        return true;
+    }
+
+    // Планирует удаление окна, сохраняя View для следующего показа; false — окно и так не добавлено
+    public boolean detach() {
+        if (attachPending) {
+            // Добавление ещё не выполнено — планировщик просто отменит его
+            attachPending = false;
+            scheduler.scheduleRemove(displayId, view);
+            return true;
+        }
+        if (!attached) return false;
+        if (attachListener != null) attachListener.onDetached(view);
+        scheduler.scheduleRemove(displayId, view);
+        attached = false;
+        detachCount++;
+        return true;
+    }
+
+    // Планирует удаление окна и забывает View (при остановке сервиса)
+    public void release() {
+        detach();
+        view = null;
+    }
+
+    public long getCreateCount() {
+        return createCount;
+    }
+
+    public long getAttachCount() {
+        return attachCount;
+    }
+
+    public long getDetachCount() {
+        return detachCount;
+    }
+
+    public long getAttachFailCount() {
+        return attachFailCount;
+    }
+}
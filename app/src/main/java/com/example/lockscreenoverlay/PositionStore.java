@@ -0,0 +1,151 @@
+package com.example.lockscreenoverlay;
+
+// Коллекции для хранения позиций в памяти
+import java.util.HashMap;
+import java.util.Map;
+// Потоки для фоновой загрузки и отложенной записи
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Позиции плавающей кнопки в памяти с фоновым хранением на диске.
+// Загрузка выполняется один раз в фоне, запись откладывается и объединяется, так что главный поток
+// никогда не обращается к диску. Для каждой конфигурации экрана (ориентация, размер) своя позиция.
+public final class PositionStore {
+    // Позиция, сохранённая старой версией без учёта конфигурации экрана
+    public static final String LEGACY_KEY = "legacy";
+    // Задержка записи: все перемещения за это время попадут на диск одной записью
+    public static final long WRITE_DELAY_MS = 500;
+
+    // Постоянное хранилище; вызывается только из фонового потока
+    public interface Backend {
+        Map<String, Long> readAll();
+        void writeAll(Map<String, Long> positions);
+    }
+
+    public interface LoadListener {
+        void onPositionsLoaded();
+    }
+
+    private final Backend backend;
+    private final ScheduledExecutorService ioExecutor;  // Фоновый поток для диска
+    private final Executor mainExecutor;                // Поток, в котором вызывается LoadListener
+    private final Map<String, Long> positions = new HashMap<>();
+    private boolean loaded = false;
+    private boolean writeScheduled = false;
+    private ScheduledFuture<?> pendingWrite;           // Запланированная отложенная запись
+    private long writeCount = 0;
+
+    private final Runnable writeTask = new Runnable() {
+        @Override
+        public void run() {
+            Map<String, Long> snapshot;
+            synchronized (positions) {
+                writeScheduled = false;
+                snapshot = new HashMap<>(positions);
+            }
+            backend.writeAll(snapshot);
+            synchronized (positions) {
+                writeCount++;
+            }
+        }
+    };
+
+    public PositionStore(Backend backend, ScheduledExecutorService ioExecutor, Executor mainExecutor) {
+        this.backend = backend;
+        this.ioExecutor = ioExecutor;
+        this.mainExecutor = mainExecutor;
+    }
+
+    // Ключ конфигурации экрана: ориентация и размер в dp
+    public static String configKey(int orientation, int screenWidthDp, int screenHeightDp) {
+        return orientation + ":" + screenWidthDp + "x" + screenHeightDp;
+    }
+
+    public static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    public static int unpackX(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    public static int unpackY(long packed) {
+        return (int) packed;
+    }
+
+    // Загружает позиции в фоне; listener вызывается в mainExecutor после загрузки
+    public void load(final LoadListener listener) {
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Map<String, Long> stored = backend.readAll();
+                synchronized (positions) {
+                    // Позиции, сохранённые до окончания загрузки, новее сохранённых на диске
+                    for (Map.Entry<String, Long> entry : stored.entrySet()) {
+                        if (!positions.containsKey(entry.getKey())) {
+                            positions.put(entry.getKey(), entry.getValue());
+                        }
+                    }
+                    loaded = true;
+                }
+                if (listener != null) {
+                    mainExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            listener.onPositionsLoaded();
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    public boolean isLoaded() {
+        synchronized (positions) {
+            return loaded;
+        }
+    }
+
+    // Позиция для конфигурации; если её нет — позиция старой версии, иначе значение по умолчанию
+    public long get(String configKey, long defaultPosition) {
+        synchronized (positions) {
+            Long value = positions.get(configKey);
+            if (value == null) value = positions.get(LEGACY_KEY);
+            return value != null ? value : defaultPosition;
+        }
+    }
+
+    public boolean contains(String configKey) {
+        synchronized (positions) {
+            return positions.containsKey(configKey);
+        }
+    }
+
+    // Обновляет позицию в памяти и планирует отложенную запись на диск
+    public void put(String configKey, int x, int y) {
+        synchronized (positions) {
+            positions.put(configKey, pack(x, y));
+            if (writeScheduled) return;
+            writeScheduled = true;
+            pendingWrite = ioExecutor.schedule(writeTask, WRITE_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Записывает несохранённые изменения без задержки и завершает фоновый поток
+    public void close() {
+        synchronized (positions) {
+            if (writeScheduled && pendingWrite.cancel(false)) {
+                ioExecutor.execute(writeTask);
+            }
+        }
+        ioExecutor.shutdown();
+    }
+
+    public long getWriteCount() {
+        synchronized (positions) {
+            return writeCount;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.lockscreenoverlay;
+
+// Для доступа к SharedPreferences
+import android.content.Context;
+import android.content.SharedPreferences;
+
+// Коллекции для передачи позиций
+import java.util.HashMap;
+import java.util.Map;
+
+// Хранение позиций плавающей кнопки в SharedPreferences. Вызывается только из фонового потока PositionStore.
+public final class PreferencesPositionBackend implements PositionStore.Backend {
+    private static final String PREFS_NAME = "floating_button_prefs";
+    private static final String KEY_PREFIX = "pos_";
+    // Ключи старой версии, где позиция была одна на все конфигурации
+    private static final String KEY_X = "button_x";
+    private static final String KEY_Y = "button_y";
+
+    private final Context appContext;
+
+    public PreferencesPositionBackend(Context context) {
+        this.appContext = context.getApplicationContext();
+    }
+
+    @Override
+    public Map<String, Long> readAll() {
+        SharedPreferences prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        Map<String, Long> positions = new HashMap<>();
+        for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+            if (entry.getKey().startsWith(KEY_PREFIX) && entry.getValue() instanceof Long) {
+                positions.put(entry.getKey().substring(KEY_PREFIX.length()), (Long) entry.getValue());
+            }
+        }
+        if (prefs.contains(KEY_X) && prefs.contains(KEY_Y)) {
+            positions.put(PositionStore.LEGACY_KEY,
+                    PositionStore.pack(prefs.getInt(KEY_X, 0), prefs.getInt(KEY_Y, 0)));
+        }
+        return positions;
+    }
+
+    @Override
+    public void writeAll(Map<String, Long> positions) {
+        SharedPreferences.Editor editor = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit();
+        for (Map.Entry<String, Long> entry : positions.entrySet()) {
+            if (PositionStore.LEGACY_KEY.equals(entry.getKey())) continue;
+            editor.putLong(KEY_PREFIX + entry.getKey(), entry.getValue());
+        }
+        // Уже в фоновом потоке, поэтому пишем синхронно
+        editor.commit();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.lockscreenoverlay;
+
+// Для приёма системных событий включения/выключения экрана
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+// Для проверки версии Android и текущего состояния экрана
+import android.os.Build;
+import android.os.PowerManager;
+
+// Список подписчиков, безопасный к отписке прямо во время рассылки
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Следит за тем, включён ли дисплей. Приёмник регистрируется только пока есть подписчики.
+public final class ScreenStateMonitor {
+
+    public interface Listener {
+        void onScreenStateChanged(boolean interactive);
+    }
+
+    private static ScreenStateMonitor instance;
+
+    public static ScreenStateMonitor get(Context context) {
+        if (instance == null) {
+            instance = new ScreenStateMonitor(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    // Тесты забывают экземпляр вместе с контекстом приложения
+    static void resetForTest() {
+        instance = null;
+    }
+
+    private final Context appContext;
+    private final PowerManager powerManager;
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private boolean registered = false;
+    private boolean interactive = true;
+
+    private final BroadcastReceiver screenReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            String action = intent.getAction();
+            if (Intent.ACTION_SCREEN_OFF.equals(action)) {
+                setInteractive(false);
+            } else if (Intent.ACTION_SCREEN_ON.equals(action)) {
+                setInteractive(true);
+            }
+        }
+    };
+
+    private ScreenStateMonitor(Context appContext) {
+        this.appContext = appContext;
+        this.powerManager = (PowerManager) appContext.getSystemService(Context.POWER_SERVICE);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+        if (!registered) {
+            // Регистрируем BroadcastReceiver с учетом Android 14+
+            IntentFilter filter = new IntentFilter();
+            filter.addAction(Intent.ACTION_SCREEN_OFF);
+            filter.addAction(Intent.ACTION_SCREEN_ON);
+            if (Build.VERSION.SDK_INT >= 34) {
+                appContext.registerReceiver(screenReceiver, filter, Context.RECEIVER_NOT_EXPORTED);
+            } else {
+                appContext.registerReceiver(screenReceiver, filter);
+            }
+            registered = true;
+            interactive = powerManager.isInteractive();
+        }
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+        if (registered && listeners.isEmpty()) {
+            appContext.unregisterReceiver(screenReceiver);
+            registered = false;
+        }
+    }
+
+    public boolean isInteractive() {
+        return registered ? interactive : powerManager.isInteractive();
+    }
+
+    private void setInteractive(boolean value) {
+        if (interactive == value) return;
+        interactive = value;
+        for (Listener listener : listeners) {
+            listener.onScreenStateChanged(value);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.lockscreenoverlay;
+
+// Для построения отчёта
+import java.util.Locale;
+
+// Отметки времени запуска (в шкале uptimeMillis): от старта процесса и нажатия на иконку
+// до появления плавающей кнопки на экране. Каждая отметка фиксируется один раз за запуск.
+public final class StartupTimeline {
+
+    public enum Milestone {
+        PROCESS_START,     // Процесс создан
+        LAUNCH,            // Запуск из лаунчера
+        SERVICE_CREATED,   // FloatButtonService.onCreate
+        BUTTON_ATTACHED,   // Окно кнопки добавлено в WindowManager
+        BUTTON_DRAWN       // Первый кадр кнопки отрисован
+    }
+
+    private static final StartupTimeline INSTANCE = new StartupTimeline();
+
+    public static StartupTimeline get() {
+        return INSTANCE;
+    }
+
+    private final long[] times = new long[Milestone.values().length];
+
+    StartupTimeline() {
+        reset();
+    }
+
+    public synchronized void reset() {
+        for (int i = 0; i < times.length; i++) times[i] = -1;
+    }
+
+    // Возвращает true, если отметка записана впервые
+    public synchronized boolean mark(Milestone milestone, long uptimeMillis) {
+        if (times[milestone.ordinal()] >= 0) return false;
+        times[milestone.ordinal()] = uptimeMillis;
+        return true;
+    }
+
+    public synchronized boolean has(Milestone milestone) {
+        return times[milestone.ordinal()] >= 0;
+    }
+
+    // Длительность между отметками в мс или -1, если какой-то из них нет
+    public synchronized long durationMs(Milestone from, Milestone to) {
+        long start = times[from.ordinal()];
+        long end = times[to.ordinal()];
+        if (start < 0 || end < 0) return -1;
+        return end - start;
+    }
+
+    // Время от запуска до видимой кнопки: от нажатия на иконку, а при перезапуске системой — от старта процесса
+    public synchronized long launchToButtonVisibleMs() {
+        Milestone from = has(Milestone.LAUNCH) ? Milestone.LAUNCH : Milestone.PROCESS_START;
+        return durationMs(from, Milestone.BUTTON_DRAWN);
+    }
+
+    public synchronized String report() {
+        StringBuilder sb = new StringBuilder("startup:");
+        Milestone[] milestones = Milestone.values();
+        long base = -1;
+        for (Milestone milestone : milestones) {
+            long time = times[milestone.ordinal()];
+            if (time < 0) continue;
+            if (base < 0) base = time;
+            sb.append(String.format(Locale.US, " %s=+%dms", milestone.name().toLowerCase(Locale.US), time - base));
+        }
+        sb.append(" launch-to-button-visible=").append(launchToButtonVisibleMs()).append("ms");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.lockscreenoverlay;
+
+// Логика свайпа разблокировки без зависимостей от Android: принимает координаты и скорость,
+// возвращает положение индикатора и решение о разблокировке. Во время жеста не создаёт объектов.
+public final class SwipeUnlockEngine {
+    // Расстояние свайпа для разблокировки, dp (раньше было 500 px ≈ 160 dp на xxhdpi)
+    public static final float UNLOCK_DISTANCE_DP = 160f;
+    // Скорость броска, при которой достаточно пройти часть пути, dp/с
+    public static final float FLING_VELOCITY_DP = 1000f;
+    // Доля пути, после которой быстрый бросок тоже разблокирует
+    public static final float FLING_MIN_FRACTION = 0.3f;
+
+    private final float density;
+    private float unlockDistancePx;         // Порог разблокировки в пикселях этого экрана
+    private final float flingVelocityPx;    // Порог скорости броска, px/с
+    private boolean flingEnabled = true;    // Разблокирует ли быстрый бросок на часть пути
+    private float maxOffset = Float.MAX_VALUE; // Максимальное смещение индикатора внутри зоны свайпа
+
+    private float startX;                   // Координата X пальца при касании
+    private float offset;                   // Текущее смещение индикатора
+    private boolean dragging = false;       // Идёт ли перетаскивание
+
+    public SwipeUnlockEngine(float density) {
+        this.density = density;
+        this.unlockDistancePx = UNLOCK_DISTANCE_DP * density;
+        this.flingVelocityPx = FLING_VELOCITY_DP * density;
+    }
+
+    // Порог и способ разблокировки из профиля; начатый жест продолжается уже с новыми значениями
+    public void configure(float unlockDistanceDp, boolean flingEnabled) {
+        this.unlockDistancePx = unlockDistanceDp * density;
+        this.flingEnabled = flingEnabled;
+    }
+
+    // Задаётся после раскладки: насколько индикатор может сдвинуться вправо
+    public void setMaxOffset(float maxOffset) {
+        this.maxOffset = Math.max(0f, maxOffset);
+    }
+
+    public void onDown(float x) {
+        startX = x;
+        offset = 0f;
+        dragging = true;
+    }
+
+    // Возвращает true, если смещение достигло порога и экран нужно разблокировать
+    public boolean onMove(float x) {
+        if (!dragging) return false;
+        float delta = x - startX;
+        // Ограничиваем положение индикатора внутри зоны свайпа
+        offset = Math.max(0f, Math.min(delta, maxOffset));
+        if (delta >= effectiveDistance()) {
+            dragging = false;
+            return true;
+        }
+        return false;
+    }
+
+    // Отпускание пальца: true — разблокировать (бросок вправо), false — вернуть индикатор на место
+    public boolean onUp(float velocityX) {
+        if (!dragging) return false;
+        dragging = false;
+        float distance = effectiveDistance();
+        if (offset >= distance) return true;
+        return flingEnabled && velocityX >= flingVelocityPx && offset >= distance * FLING_MIN_FRACTION;
+    }
+
+    public void onCancel() {
+        dragging = false;
+    }
+
+    public boolean isDragging() {
+        return dragging;
+    }
+
+    public float getOffset() {
+        return offset;
+    }
+
+    // Если зона свайпа короче порога (маленький экран), достаточно дойти до её конца
+    private float effectiveDistance() {
+        return maxOffset > 0f ? Math.min(unlockDistancePx, maxOffset) : unlockDistancePx;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.lockscreenoverlay;
+
+// Различает нажатие и перетаскивание плавающей кнопки без зависимостей от Android:
+// принимает координаты пальца на экране, возвращает смещение от точки касания.
+// Как только палец ушёл дальше порога, жест остаётся перетаскиванием до отпускания.
+public final class TapDragClassifier {
+    // Порог в пикселях, после которого касание считается перетаскиванием
+    public static final int DEFAULT_SLOP_PX = 5;
+
+    private final int slopPx;
+    private float downX, downY;         // Точка касания на экране
+    private int deltaX, deltaY;         // Смещение пальца от точки касания
+    private boolean dragging = false;   // Порог уже превышен
+    private boolean pressed = false;    // Палец на кнопке
+
+    public TapDragClassifier() {
+        this(DEFAULT_SLOP_PX);
+    }
+
+    public TapDragClassifier(int slopPx) {
+        this.slopPx = slopPx;
+    }
+
+    public void onDown(float rawX, float rawY) {
+        downX = rawX;
+        downY = rawY;
+        deltaX = 0;
+        deltaY = 0;
+        dragging = false;
+        pressed = true;
+    }
+
+    // Возвращает true, если жест — перетаскивание
+    public boolean onMove(float rawX, float rawY) {
+        if (!pressed) return false;
+        deltaX = (int) (rawX - downX);
+        deltaY = (int) (rawY - downY);
+        if (Math.abs(deltaX) > slopPx || Math.abs(deltaY) > slopPx) {
+            dragging = true;
+        }
+        return dragging;
+    }
+
+    // Отпускание: true — это было нажатие, false — перетаскивание (или касания не было)
+    public boolean onUp() {
+        if (!pressed) return false;
+        pressed = false;
+        return !dragging;
+    }
+
+    public void onCancel() {
+        pressed = false;
+    }
+
+    public boolean isDragging() {
+        return dragging;
+    }
+
+    public int getDeltaX() {
+        return deltaX;
+    }
+
+    public int getDeltaY() {
+        return deltaY;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.lockscreenoverlay;
+
+// Базовый класс для View элементов UI
+import android.view.View;
+// Для добавления/обновления/удаления окон на конкретном дисплее
+import android.view.WindowManager;
+
+// Операции OverlayScheduler поверх WindowManager одного дисплея.
+// Параметры окна берутся из самого View: их задают через setLayoutParams до добавления.
+public final class WindowManagerOps implements OverlayScheduler.WindowOps<View> {
+    private final WindowManager windowManager;
+
+    public WindowManagerOps(WindowManager windowManager) {
+        this.windowManager = windowManager;
+    }
+
+    @Override
+    public boolean add(View view) {
+        try {
+            windowManager.addView(view, view.getLayoutParams());
+            return true;
+        } catch (Exception e) {
+            // Нет разрешения на оверлей (BadTokenException), окно уже добавлено, дисплей отключён
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public void update(View view) {
+        try {
+            windowManager.updateViewLayout(view, view.getLayoutParams());
+        } catch (IllegalArgumentException e) {
+            // Окно уже удалено из WindowManager — обновлять нечего
+        }
+    }
+
+    @Override
+    public void remove(View view) {
+        try {
+            windowManager.removeView(view);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.lockscreenoverlay;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Проверки докатывания плавающей кнопки к краю экрана.
+ */
+public class EdgeSnapPhysicsTest {
+    private static final float DENSITY = 3f;
+    private static final float FRAME_SECONDS = 1f / 60f;
+    // 1080x2340 экран, кнопка 150x150
+    private static final int MAX_X = 1080 - 150;
+    private static final int MAX_Y = 2340 - 150;
+
+    private static EdgeSnapPhysics physics() {
+        EdgeSnapPhysics physics = new EdgeSnapPhysics(DENSITY);
+        physics.setBounds(0, MAX_X, 0, MAX_Y);
+        return physics;
+    }
+
+    // Шагает по кадрам до остановки; возвращает число кадров
+    private static int runToRest(EdgeSnapPhysics physics) {
+        int frames = 0;
+        while (physics.step(FRAME_SECONDS)) {
+            frames++;
+            assertTrue("glide did not settle", frames < 600);
+        }
+        return frames + 1;
+    }
+
+    @Test
+    public void releasedWithoutVelocitySnapsToNearestEdge() {
+        EdgeSnapPhysics left = physics();
+        left.start(300, 800, 0f, 0f);
+        runToRest(left);
+        assertEquals(0, left.getX());
+        assertEquals(800, left.getY());
+
+        EdgeSnapPhysics right = physics();
+        right.start(600, 800, 0f, 0f);
+        runToRest(right);
+        assertEquals(MAX_X, right.getX());
+    }
+
+    @Test
+    public void flingCarriesToTheFarEdge() {
+        EdgeSnapPhysics physics = physics();
+        physics.start(300, 800, 3000f, 0f);
+        runToRest(physics);
+        assertEquals(MAX_X, physics.getX());
+    }
+
+    @Test
+    public void hardFlingStopsAtTheEdgeInsteadOfOvershooting() {
+        EdgeSnapPhysics right = physics();
+        right.start(800, 800, 20000f, 0f);
+        while (right.step(FRAME_SECONDS)) {
+            assertTrue("x=" + right.getX(), right.getX() <= MAX_X);
+        }
+        assertEquals(MAX_X, right.getX());
+
+        EdgeSnapPhysics left = physics();
+        left.start(100, 800, -20000f, 0f);
+        // Даже один длинный кадр не выносит кнопку за левый край
+        left.step(0.1f);
+        assertTrue("x=" + left.getX(), left.getX() >= 0);
+        runToRest(left);
+        assertEquals(0, left.getX());
+    }
+
+    @Test
+    public void verticalGlideDeceleratesAndStaysOnScreen() {
+        EdgeSnapPhysics slow = physics();
+        slow.start(100, 1000, 0f, 840f);
+        runToRest(slow);
+        // Путь скольжения ≈ v / FRICTION = 200 px, остановка чуть раньше — на пороге скорости покоя
+        assertEquals(1200, slow.getY(), 30);
+
+        EdgeSnapPhysics fast = physics();
+        fast.start(100, 2000, 0f, 10000f);
+        while (fast.step(FRAME_SECONDS)) {
+            assertTrue(fast.getY() <= MAX_Y);
+        }
+        assertEquals(MAX_Y, fast.getY());
+    }
+
+    @Test
+    public void settlesWithinAFewHundredFrames() {
+        EdgeSnapPhysics physics = physics();
+        physics.start(450, 100, -2500f, 2500f);
+        int frames = runToRest(physics);
+        assertTrue("frames=" + frames, frames <= 120);
+        assertEquals(0, physics.getX());
+    }
+
+    @Test
+    public void longFrameIsSplitIntoStableSteps() {
+        EdgeSnapPhysics physics = physics();
+        physics.start(300, 800, 0f, 0f);
+        // Пропущенные кадры не должны раскачивать пружину
+        physics.step(0.5f);
+        assertTrue(physics.getX() >= 0 && physics.getX() <= 300);
+    }
+
+    @Test
+    public void clampsPositionLeftFromAnotherScreenSize() {
+        EdgeSnapPhysics physics = physics();
+        assertEquals(MAX_X, physics.clampX(1900));
+        assertEquals(0, physics.clampY(-40));
+        // Кнопка больше экрана: остаётся у левого/верхнего края
+        physics.setBounds(0, -10, 0, -10);
+        assertEquals(0, physics.clampX(50));
+        assertEquals(0, physics.clampY(50));
+    }
+
+    @Test
+    public void cancelStopsTheGlide() {
+        EdgeSnapPhysics physics = physics();
+        physics.start(300, 800, 0f, 0f);
+        assertTrue(physics.step(FRAME_SECONDS));
+        physics.cancel();
+        assertFalse(physics.isRunning());
+        assertFalse(physics.step(FRAME_SECONDS));
+    }
+}
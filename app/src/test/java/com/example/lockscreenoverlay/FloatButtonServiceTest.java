@@ -0,0 +1,126 @@
+package com.example.lockscreenoverlay;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ServiceController;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Показ и скрытие плавающей кнопки через настоящий FloatButtonService (Robolectric): переходы
+ * состояния идут через OverlayStateMachine, окна — через WindowManager Robolectric.
+ * Счётчики окна читаются из dumpsys-вывода сервиса. Общие для процесса объекты сбрасываются
+ * после каждого теста, чтобы следующий начинал с новым сервисом, а не с подписчиками предыдущего.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class FloatButtonServiceTest {
+    private static final Pattern WINDOW = Pattern.compile(
+            "window: created=(\\d+) attached=(\\d+) detached=(\\d+) add failures=(\\d+)");
+    private static final Pattern PASSES = Pattern.compile("window manager passes: (\\d+)");
+
+    private static final long LOAD_TIMEOUT_MS = 5_000;
+
+    private final OverlayStateMachine stateMachine = OverlayStateMachine.get();
+    private ServiceController<FloatButtonService> controller;
+    private FloatButtonService service;
+
+    // Позиции и последнее состояние читаются в фоне, а применяются постом в главный поток:
+    // ждём оба чтения, прокручивая главный Looper Robolectric
+    static void awaitRestored(FloatButtonService service) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + LOAD_TIMEOUT_MS;
+        ShadowLooper.idleMainLooper();
+        while (!service.isRestored()) {
+            assertTrue("stores not loaded", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+            ShadowLooper.idleMainLooper();
+        }
+    }
+
+    // Общие для процесса объекты переживают тест, а контекст приложения Robolectric — нет
+    static void resetSingletons() {
+        LockOverlayController.resetForTest();
+        OverlayDisplays.resetForTest();
+        ScreenStateMonitor.resetForTest();
+        OverlayStateMachine.resetForTest();
+    }
+
+    @Before
+    public void setUp() throws InterruptedException {
+        controller = Robolectric.buildService(FloatButtonService.class).create();
+        service = controller.get();
+        // Сохранённого состояния нет — после загрузки кнопка показана; тесты начинают с блокировки
+        awaitRestored(service);
+        stateMachine.moveTo(OverlayStateMachine.State.LOCKED);
+    }
+
+    @After
+    public void tearDown() {
+        controller.destroy();
+        resetSingletons();
+    }
+
+    private String dump() {
+        StringWriter out = new StringWriter();
+        PrintWriter writer = new PrintWriter(out);
+        service.dump(null, writer, new String[0]);
+        writer.flush();
+        return out.toString();
+    }
+
+    // created, attached, detached, add failures кнопки основного дисплея
+    private long[] windowCounters() {
+        Matcher matcher = WINDOW.matcher(dump());
+        assertTrue(matcher.find());
+        long[] counters = new long[4];
+        for (int i = 0; i < counters.length; i++) counters[i] = Long.parseLong(matcher.group(i + 1));
+        return counters;
+    }
+
+    private long passes() {
+        Matcher matcher = PASSES.matcher(dump());
+        assertTrue(matcher.find());
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private long cycle() {
+        stateMachine.moveTo(OverlayStateMachine.State.UNLOCKED);
+        stateMachine.moveTo(OverlayStateMachine.State.LOCKED);
+        return 1;
+    }
+
+    @Test
+    public void showHideReusesTheWindowWithOnePassPerTransition() {
+        long[] before = windowCounters();
+        long passesBefore = passes();
+        for (int i = 0; i < 20; i++) cycle();
+        long[] after = windowCounters();
+
+        assertEquals("window re-created", before[0], after[0]);
+        assertEquals(20, after[1] - before[1]);
+        assertEquals(20, after[2] - before[2]);
+        assertEquals(0, after[3]);
+        assertEquals(40, passes() - passesBefore);
+    }
+
+    @Test
+    public void showHideAllocations() {
+        Assume.assumeTrue("timing runs only with -Pbenchmark", MicroBenchmark.isEnabled());
+        // Байт на цикл показ + скрытие: сюда входит и addView/removeView WindowManager Robolectric,
+        // поэтому число сравнивается только с самим собой до и после изменения
+        MicroBenchmark.run("float button show/hide", 200, 1_000, this::cycle);
+        assertEquals(1, windowCounters()[0]);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.lockscreenoverlay;
+
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Касания плавающей кнопки на настоящих MotionEvent (Robolectric).
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class FloatButtonTouchListenerTest {
+
+    private static final class RecordingHost implements FloatButtonTouchListener.Host {
+        int x = 50, y = 60;
+        int presses, drags, dragEnds, taps;
+        float velocityX, velocityY;
+
+        @Override public int getButtonX() { return x; }
+        @Override public int getButtonY() { return y; }
+        @Override public void onPress() { presses++; }
+
+        @Override
+        public void onDrag(int x, int y, long eventTimeMillis, int samples) {
+            drags++;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public void onDragEnd(float velocityX, float velocityY) {
+            dragEnds++;
+            this.velocityX = velocityX;
+            this.velocityY = velocityY;
+        }
+
+        @Override public void onTap(long eventTimeMillis) { taps++; }
+    }
+
+    private RecordingHost host;
+    private FloatButtonTouchListener listener;
+
+    @Before
+    public void setUp() {
+        host = new RecordingHost();
+        listener = new FloatButtonTouchListener(host);
+    }
+
+    // Событие в координатах экрана; в координатах View — относительно текущего положения окна
+    private void send(int action, long time, float rawX, float rawY) {
+        MotionEvent event = MotionEvent.obtain(0, time, action, rawX, rawY, 0);
+        event.offsetLocation(-host.x, -host.y);
+        assertTrue(listener.onTouch(null, event));
+        event.recycle();
+    }
+
+    @Test
+    public void smallJitterIsATap() {
+        send(MotionEvent.ACTION_DOWN, 0, 100, 100);
+        send(MotionEvent.ACTION_MOVE, 16, 103, 98);
+        send(MotionEvent.ACTION_UP, 32, 104, 99);
+        assertEquals(1, host.taps);
+        assertEquals(0, host.dragEnds);
+    }
+
+    @Test
+    public void dragMovesWindowByFingerDelta() {
+        send(MotionEvent.ACTION_DOWN, 0, 100, 100);
+        send(MotionEvent.ACTION_MOVE, 16, 160, 130);
+        assertEquals(110, host.x);
+        assertEquals(90, host.y);
+        send(MotionEvent.ACTION_UP, 32, 160, 130);
+        assertEquals(0, host.taps);
+        assertEquals(1, host.dragEnds);
+    }
+
+    @Test
+    public void flingVelocityIsMeasuredInScreenCoordinates() {
+        // Окно едет вместе с пальцем, поэтому в координатах View палец почти не двигается
+        send(MotionEvent.ACTION_DOWN, 0, 100, 500);
+        for (int i = 1; i <= 10; i++) {
+            send(MotionEvent.ACTION_MOVE, i * 10, 100 + i * 30, 500);
+        }
+        send(MotionEvent.ACTION_UP, 110, 400, 500);
+        // 30 px за 10 мс = 3000 px/с
+        assertEquals(3000f, host.velocityX, 300f);
+        assertEquals(0f, host.velocityY, 50f);
+    }
+
+    @Test
+    public void cancelDuringDragEndsItWithoutFling() {
+        send(MotionEvent.ACTION_DOWN, 0, 100, 100);
+        send(MotionEvent.ACTION_MOVE, 16, 200, 100);
+        send(MotionEvent.ACTION_CANCEL, 32, 200, 100);
+        assertEquals(1, host.dragEnds);
+        assertEquals(0f, host.velocityX, 0f);
+        assertEquals(0, host.taps);
+    }
+
+    @Test
+    public void everyDownStopsTheGlide() {
+        send(MotionEvent.ACTION_DOWN, 0, 100, 100);
+        send(MotionEvent.ACTION_UP, 10, 100, 100);
+        send(MotionEvent.ACTION_DOWN, 20, 100, 100);
+        assertEquals(2, host.presses);
+    }
+
+    @Test
+    public void recycleDetachesAndIgnoresLateEvents() {
+        View button = new View(RuntimeEnvironment.getApplication());
+        button.setOnTouchListener(listener);
+        listener.recycle(button);
+        listener.recycle(button);
+
+        // Кнопка больше не отдаёт касания слушателю, а запоздавшее событие не трогает VelocityTracker
+        MotionEvent event = MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 10, 10, 0);
+        assertFalse(button.dispatchTouchEvent(event));
+        assertFalse(listener.onTouch(button, event));
+        event.recycle();
+        assertEquals(0, host.presses);
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.lockscreenoverlay;
+
+import android.content.Context;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Воспроизведение синтетических жестов (app/src/test/resources/gestures, построены SyntheticGestures)
+ * через обработчики касаний: FloatButtonTouchListener плавающей кнопки и содержимое LockOverlayWindow
+ * (разметка и LockCanvasView).
+ * Сами сервисы и окна WindowManager не участвуют. Проверяется исход жеста; время обработки событий
+ * только печатается — под Robolectric оно зависит от машины и не годится для порога.
+ * Записи с устройства (dumpsys ... FloatButtonService trace start / trace stop) кладутся туда же.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34, qualifiers = "w360dp-h780dp-xxhdpi")
+public class GestureReplayTest {
+    private static final int WARMUP_REPLAYS = 50;
+    private static final int SCREEN_WIDTH = 1080;
+    private static final int SCREEN_HEIGHT = 2340;
+
+    // Куда отправлять события записи
+    private interface Target {
+        void dispatch(MotionEvent event);
+    }
+
+    private static final class FloatButtonHost implements FloatButtonTouchListener.Host {
+        int x = 100, y = 300;
+        int taps, dragEnds;
+        float velocityX;
+
+        @Override
+        public int getButtonX() {
+            return x;
+        }
+
+        @Override
+        public int getButtonY() {
+            return y;
+        }
+
+        @Override
+        public void onPress() {
+        }
+
+        @Override
+        public void onDrag(int x, int y, long eventTimeMillis, int samples) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public void onDragEnd(float velocityX, float velocityY) {
+            dragEnds++;
+            this.velocityX = velocityX;
+        }
+
+        @Override
+        public void onTap(long eventTimeMillis) {
+            taps++;
+        }
+    }
+
+    private static final class LockHost implements LockOverlayWindow.Host {
+        int unlocks;
+        int unlockAtEvent = -1;     // Номер события записи, на котором сработала разблокировка
+        int currentEvent;
+
+        @Override
+        public void onUserActivity() {
+        }
+
+        @Override
+        public void onSwipeInput(long eventTimeMillis) {
+        }
+
+        @Override
+        public void onSwipeCancelled() {
+        }
+
+        @Override
+        public void onUnlockGesture() {
+            if (unlocks++ == 0) unlockAtEvent = currentEvent;
+        }
+
+        @Override
+        public void onCloseClicked() {
+        }
+
+        @Override
+        public void onFrameDrawn(LockOverlayWindow window) {
+        }
+    }
+
+    // Проигрывает запись как отдельные MotionEvent; возвращает время обработки каждого события, нс
+    private static long[] replay(GestureTrace trace, float density, Target target, LockHost lockHost) {
+        float scale = density / trace.getDensity();
+        long[] nanos = new long[trace.size()];
+        long downTime = 0;
+        for (int i = 0; i < trace.size(); i++) {
+            long time = trace.getTimeMillis(i);
+            if (trace.getAction(i) == MotionEvent.ACTION_DOWN) downTime = time;
+            MotionEvent event = MotionEvent.obtain(downTime, time, trace.getAction(i),
+                    trace.getX(i) * scale, trace.getY(i) * scale, 0);
+            if (lockHost != null) lockHost.currentEvent = i;
+            long start = System.nanoTime();
+            target.dispatch(event);
+            nanos[i] = System.nanoTime() - start;
+            event.recycle();
+        }
+        return nanos;
+    }
+
+    // Время обработки событий для сравнения до/после изменения; порогов нет
+    private static void reportTimings(String name, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        long p95 = sorted[(int) Math.ceil(sorted.length * 0.95) - 1];
+        System.out.println(name + ": " + nanos.length + " events, median " + sorted[sorted.length / 2]
+                + " ns, p95 " + p95 + " ns");
+    }
+
+    private static FloatButtonHost replayFloatButton(String name) throws IOException {
+        GestureTrace trace = GestureTraceTest.load(name);
+        float density = RuntimeEnvironment.getApplication().getResources().getDisplayMetrics().density;
+        for (int i = 0; i < WARMUP_REPLAYS; i++) {
+            replayFloatButton(trace, density, new FloatButtonHost());
+        }
+        FloatButtonHost host = new FloatButtonHost();
+        reportTimings(name, replayFloatButton(trace, density, host));
+        return host;
+    }
+
+    private static long[] replayFloatButton(GestureTrace trace, float density, final FloatButtonHost host) {
+        final FloatButtonTouchListener listener = new FloatButtonTouchListener(host);
+        try {
+            // Запись — в координатах экрана, View получает их относительно текущего положения окна
+            return replay(trace, density, event -> {
+                event.offsetLocation(-host.x, -host.y);
+                listener.onTouch(null, event);
+            }, null);
+        } finally {
+            listener.recycle();
+        }
+    }
+
+    private static LockHost replayLockSwipe(String name, LockProfile.Renderer renderer) throws IOException {
+        GestureTrace trace = GestureTraceTest.load(name);
+        Context context = RuntimeEnvironment.getApplication();
+        float density = context.getResources().getDisplayMetrics().density;
+        for (int i = 0; i < WARMUP_REPLAYS; i++) {
+            replayLockSwipe(trace, context, density, renderer, new LockHost());
+        }
+        LockHost host = new LockHost();
+        reportTimings(name + " " + renderer, replayLockSwipe(trace, context, density, renderer, host));
+        return host;
+    }
+
+    private static long[] replayLockSwipe(GestureTrace trace, Context context, float density,
+                                          LockProfile.Renderer renderer, LockHost host) {
+        LockOverlayWindow window = new LockOverlayWindow(context, 0, renderer, host);
+        View root = window.getView();
+        root.measure(View.MeasureSpec.makeMeasureSpec(SCREEN_WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(SCREEN_HEIGHT, View.MeasureSpec.EXACTLY));
+        root.layout(0, 0, SCREEN_WIDTH, SCREEN_HEIGHT);
+        // Запись свайпа — в координатах зоны свайпа
+        if (renderer == LockProfile.Renderer.CANVAS) {
+            final LockCanvasView canvasView = (LockCanvasView) root;
+            final float left = canvasView.getTrackLeft();
+            final float top = canvasView.getTrackTop();
+            return replay(trace, density, event -> {
+                event.offsetLocation(left, top);
+                canvasView.dispatchTouchEvent(event);
+            }, host);
+        }
+        final View swipeZone = root.findViewById(R.id.swipe_area);
+        return replay(trace, density, swipeZone::dispatchTouchEvent, host);
+    }
+
+    // Первое событие, на котором палец ушёл от точки касания на порог разблокировки
+    private static int firstEventBeyondThreshold(GestureTrace trace) {
+        float threshold = SwipeUnlockEngine.UNLOCK_DISTANCE_DP * trace.getDensity();
+        for (int i = 1; i < trace.size(); i++) {
+            if (trace.getX(i) - trace.getX(0) >= threshold) return i;
+        }
+        return -1;
+    }
+
+    @Test
+    public void jitterWithinSlopIsATap() throws IOException {
+        FloatButtonHost host = replayFloatButton("tap_with_jitter.gtr");
+        assertEquals(1, host.taps);
+        assertEquals(0, host.dragEnds);
+    }
+
+    @Test
+    public void slowDragIsADragWithoutFling() throws IOException {
+        FloatButtonHost host = replayFloatButton("drag_slow.gtr");
+        assertEquals(0, host.taps);
+        assertEquals(1, host.dragEnds);
+        assertTrue("velocity " + host.velocityX, Math.abs(host.velocityX) < 1000f);
+    }
+
+    @Test
+    public void fastDragEndsWithFling() throws IOException {
+        FloatButtonHost host = replayFloatButton("drag_fling.gtr");
+        assertEquals(0, host.taps);
+        assertEquals(1, host.dragEnds);
+        assertTrue("velocity " + host.velocityX, host.velocityX > 3000f);
+    }
+
+    @Test
+    public void fullSwipeUnlocksOnTheEventThatCrossesTheThreshold() throws IOException {
+        for (LockProfile.Renderer renderer : LockProfile.Renderer.values()) {
+            LockHost host = replayLockSwipe("swipe_unlock.gtr", renderer);
+            assertEquals(renderer.name(), 1, host.unlocks);
+            assertEquals(renderer.name(), firstEventBeyondThreshold(GestureTraceTest.load("swipe_unlock.gtr")),
+                    host.unlockAtEvent);
+        }
+    }
+
+    @Test
+    public void shortSlowSwipeDoesNotUnlock() throws IOException {
+        for (LockProfile.Renderer renderer : LockProfile.Renderer.values()) {
+            LockHost host = replayLockSwipe("swipe_short.gtr", renderer);
+            assertEquals(renderer.name(), 0, host.unlocks);
+        }
+    }
+
+    @Test
+    public void shortFlingUnlocksOnRelease() throws IOException {
+        GestureTrace trace = GestureTraceTest.load("swipe_fling.gtr");
+        for (LockProfile.Renderer renderer : LockProfile.Renderer.values()) {
+            LockHost host = replayLockSwipe("swipe_fling.gtr", renderer);
+            assertEquals(renderer.name(), 1, host.unlocks);
+            assertEquals(renderer.name(), trace.size() - 1, host.unlockAtEvent);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.lockscreenoverlay;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Проверки формата записи жестов и записи на устройстве.
+ */
+public class GestureTraceTest {
+
+    static GestureTrace load(String name) throws IOException {
+        try (InputStream in = GestureTraceTest.class.getResourceAsStream("/gestures/" + name)) {
+            assertNotNull("missing trace " + name, in);
+            return GestureTrace.read(in);
+        }
+    }
+
+    private static byte[] loadBytes(String name) throws IOException {
+        try (InputStream in = GestureTraceTest.class.getResourceAsStream("/gestures/" + name)) {
+            assertNotNull("missing trace " + name, in);
+            byte[] buffer = new byte[4096];
+            int length = 0;
+            for (int read; (read = in.read(buffer, length, buffer.length - length)) > 0; ) length += read;
+            return Arrays.copyOf(buffer, length);
+        }
+    }
+
+    @Test
+    public void roundTripKeepsSamples() throws IOException {
+        GestureRecorder recorder = new GestureRecorder();
+        recorder.start(2.75f, 16);
+        recorder.record(GestureTrace.TARGET_FLOAT_BUTTON, 0, 5000, 100.25f, 200.5f);
+        recorder.record(GestureTrace.TARGET_FLOAT_BUTTON, 2, 5008, 101.1f, -3f);
+        recorder.record(GestureTrace.TARGET_LOCK_SWIPE, 1, 5020, 0f, 0f);
+        byte[] data = recorder.stop();
+        assertFalse(recorder.isRecording());
+        // Заголовок и по 8 байт на точку
+        assertEquals(GestureTrace.HEADER_BYTES + 3 * GestureTrace.SAMPLE_BYTES, data.length);
+
+        GestureTrace trace = GestureTrace.decode(data);
+        assertEquals(2.75f, trace.getDensity(), 0f);
+        assertEquals(3, trace.size());
+        assertEquals(0, trace.getTimeMillis(0));
+        assertEquals(8, trace.getTimeMillis(1));
+        assertEquals(20, trace.getTimeMillis(2));
+        assertEquals(100.25f, trace.getX(0), 0f);
+        assertEquals(200.5f, trace.getY(0), 0f);
+        // Четверть пикселя
+        assertEquals(101f, trace.getX(1), 0.125f);
+        assertEquals(-3f, trace.getY(1), 0f);
+        assertEquals(GestureTrace.TARGET_LOCK_SWIPE, trace.getTarget(2));
+        assertEquals(1, trace.getAction(2));
+    }
+
+    @Test
+    public void longPauseIsClipped() throws IOException {
+        GestureRecorder recorder = new GestureRecorder();
+        recorder.start(1f, 4);
+        recorder.record(GestureTrace.TARGET_FLOAT_BUTTON, 0, 0, 0f, 0f);
+        recorder.record(GestureTrace.TARGET_FLOAT_BUTTON, 1, 10 * 60_000, 0f, 0f);
+        GestureTrace trace = GestureTrace.decode(recorder.stop());
+        assertEquals(GestureTrace.MAX_DELTA_MS, trace.getTimeMillis(1));
+    }
+
+    @Test
+    public void fullBufferDropsSamples() {
+        GestureRecorder recorder = new GestureRecorder();
+        recorder.start(1f, 2);
+        for (int i = 0; i < 5; i++) {
+            recorder.record(GestureTrace.TARGET_FLOAT_BUTTON, 2, i, 0f, 0f);
+        }
+        assertEquals(3, recorder.getDroppedCount());
+        assertEquals(GestureTrace.HEADER_BYTES + 2 * GestureTrace.SAMPLE_BYTES, recorder.stop().length);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsForeignData() throws IOException {
+        GestureTrace.decode(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+    }
+
+    @Test
+    public void recordingDoesNotAllocate() {
+        final GestureRecorder recorder = new GestureRecorder();
+        recorder.start(3f, 150_000);
+        final int[] next = new int[1];
+        long allocated = MicroBenchmark.allocatedBytes(() -> {
+            int i = next[0]++;
+            recorder.record(GestureTrace.TARGET_LOCK_SWIPE, 2, i, i, i);
+        }, 50_000, 100_000);
+        // Запас на служебные аллокации JVM; 100 000 точек с аллокацией дали бы мегабайты
+        assertTrue("allocated " + allocated + " bytes", allocated < 4096);
+    }
+
+    @Test
+    public void fixturesMatchTheGenerator() throws IOException {
+        // Файлы в resources перегенерируются SyntheticGestures.main, а не правятся вручную
+        for (String name : SyntheticGestures.NAMES) {
+            assertArrayEquals(name, SyntheticGestures.build(name), loadBytes(name));
+        }
+    }
+
+    @Test
+    public void syntheticTracesAreCompleteGestures() throws IOException {
+        for (String name : SyntheticGestures.NAMES) {
+            GestureTrace trace = load(name);
+            assertEquals(name, 0, trace.getAction(0));                  // ACTION_DOWN
+            assertEquals(name, 1, trace.getAction(trace.size() - 1));   // ACTION_UP
+            for (int i = 1; i < trace.size(); i++) {
+                assertTrue(name, trace.getTimeMillis(i) >= trace.getTimeMillis(i - 1));
+            }
+        }
+    }
+}
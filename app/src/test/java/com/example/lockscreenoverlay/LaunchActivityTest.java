@@ -0,0 +1,71 @@
+package com.example.lockscreenoverlay;
+
+import android.app.Activity;
+import android.content.Intent;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ServiceController;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.shadows.ShadowSettings;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Запуск из лаунчера до первого кадра кнопки (Robolectric): LaunchActivity при выданном разрешении
+ * на оверлей сразу запускает FloatButtonService, сервис загружает состояние и показывает кнопку,
+ * а StartupTimeline получает все отметки по порядку.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class LaunchActivityTest {
+    private static final long FRAME_MS = 16;
+    private static final int MAX_FRAMES = 100;
+
+    private ServiceController<FloatButtonService> service;
+
+    @After
+    public void tearDown() {
+        if (service != null) service.destroy();
+        FloatButtonServiceTest.resetSingletons();
+        ShadowSettings.setCanDrawOverlays(false);
+    }
+
+    @Test
+    public void launchRecordsEveryMilestoneInOrder() throws InterruptedException {
+        ShadowSettings.setCanDrawOverlays(true);
+        Activity activity = Robolectric.buildActivity(LaunchActivity.class).create().get();
+
+        // Разрешение есть — MainActivity не открывается, сразу стартует сервис кнопки
+        assertNull(shadowOf(activity).getNextStartedActivity());
+        Intent started = shadowOf(activity).getNextStartedService();
+        assertNotNull(started);
+        assertEquals(FloatButtonService.class.getName(), started.getComponent().getClassName());
+        assertTrue(activity.isFinishing());
+
+        service = Robolectric.buildService(FloatButtonService.class, started).create().startCommand(0, 1);
+        FloatButtonServiceTest.awaitRestored(service.get());
+        // Первый кадр окна кнопки рисует Choreographer — прокручиваем кадры до него
+        StartupTimeline timeline = StartupTimeline.get();
+        for (int i = 0; i < MAX_FRAMES && !timeline.has(StartupTimeline.Milestone.BUTTON_DRAWN); i++) {
+            ShadowLooper.idleMainLooper(FRAME_MS, TimeUnit.MILLISECONDS);
+        }
+
+        StartupTimeline.Milestone[] milestones = StartupTimeline.Milestone.values();
+        for (StartupTimeline.Milestone milestone : milestones) {
+            assertTrue("missing " + milestone, timeline.has(milestone));
+        }
+        for (int i = 1; i < milestones.length; i++) {
+            assertTrue(milestones[i - 1] + " after " + milestones[i],
+                    timeline.durationMs(milestones[i - 1], milestones[i]) >= 0);
+        }
+        assertTrue(timeline.report(), timeline.launchToButtonVisibleMs() >= 0);
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.lockscreenoverlay;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Проверки кольцевого буфера журнала блокировок, его сводки и файла с ротацией.
+ */
+public class LockJournalTest {
+
+    // Запоминает сброшенные события как строки "EVENT@time=value"
+    private static final class ListSink implements LockJournal.Sink {
+        final List<String> lines = new ArrayList<>();
+
+        @Override
+        public void write(LockJournal.Event event, long timeNanos, long value) {
+            lines.add(event + "@" + timeNanos + "=" + value);
+        }
+    }
+
+    @Test
+    public void drainReturnsEventsInOrderOnce() throws IOException {
+        LockJournal journal = new LockJournal(8);
+        journal.record(LockJournal.Event.LOCK_REQUESTED, 10, 0);
+        journal.record(LockJournal.Event.OVERLAY_SHOWN, 20, 10);
+        ListSink sink = new ListSink();
+        assertEquals(2, journal.drainTo(sink));
+        assertEquals("LOCK_REQUESTED@10=0", sink.lines.get(0));
+        assertEquals("OVERLAY_SHOWN@20=10", sink.lines.get(1));
+        // Повторный сброс ничего не отдаёт
+        assertEquals(0, journal.drainTo(sink));
+        assertEquals(0, journal.getPendingCount());
+    }
+
+    @Test
+    public void overflowDropsOldestPendingEvents() throws IOException {
+        LockJournal journal = new LockJournal(4);
+        for (int i = 0; i < 6; i++) {
+            journal.record(LockJournal.Event.UNLOCK_GESTURE_START, i, 0);
+        }
+        assertEquals(2, journal.getDroppedCount());
+        assertEquals(4, journal.getPendingCount());
+        ListSink sink = new ListSink();
+        journal.drainTo(sink);
+        assertEquals("UNLOCK_GESTURE_START@2=0", sink.lines.get(0));
+        assertEquals("UNLOCK_GESTURE_START@5=0", sink.lines.get(3));
+        assertEquals(6, journal.getWrittenCount());
+    }
+
+    @Test
+    public void wrapsAroundAfterDrain() throws IOException {
+        LockJournal journal = new LockJournal(4);
+        ListSink sink = new ListSink();
+        for (int i = 0; i < 10; i++) {
+            journal.record(LockJournal.Event.UNLOCKED, i, i);
+            if (i % 3 == 2) journal.drainTo(sink);
+        }
+        journal.drainTo(sink);
+        assertEquals(10, sink.lines.size());
+        assertEquals("UNLOCKED@9=9", sink.lines.get(9));
+        assertEquals(0, journal.getDroppedCount());
+    }
+
+    @Test
+    public void summaryTracksSessionsAndFailures() {
+        LockJournal journal = new LockJournal(16);
+        journal.record(LockJournal.Event.LOCK_REQUESTED, 0, 0);
+        journal.record(LockJournal.Event.UNLOCK_GESTURE_FAILED, 1, 200_000_000L);
+        journal.record(LockJournal.Event.UNLOCK_GESTURE_FAILED, 2, 300_000_000L);
+        journal.record(LockJournal.Event.UNLOCK_GESTURE_COMPLETE, 3, 400_000_000L);
+        journal.record(LockJournal.Event.UNLOCKED, 4, 5_000_000_000L);
+        assertEquals(1, journal.getLockCount());
+        assertEquals(1, journal.getUnlockCount());
+        assertEquals(5_000_000_000L, journal.getLockedNanosTotal());
+        assertEquals(2f / 3f, journal.getGestureFailureRate(), 1e-6f);
+
+        StringWriter out = new StringWriter();
+        journal.dumpSummary(new PrintWriter(out));
+        assertTrue(out.toString(), out.toString().contains("1 completed, 2 failed (67%)"));
+        assertTrue(out.toString(), out.toString().contains("locked avg 5.0s"));
+    }
+
+    @Test
+    public void dumpRecentPrintsTheBufferWithoutDraining() throws IOException {
+        LockJournal journal = new LockJournal(2);
+        journal.record(LockJournal.Event.LOCK_REQUESTED, 10, 0);
+        journal.record(LockJournal.Event.OVERLAY_SHOWN, 20, 10);
+        journal.record(LockJournal.Event.UNLOCKED, 30, 20);
+        StringWriter out = new StringWriter();
+        journal.dumpRecent(new PrintWriter(out, true));
+        String[] lines = out.toString().split("\n");
+        assertEquals("  last 2 journal events:", lines[0]);
+        assertEquals("    20 OVERLAY_SHOWN 10", lines[1]);
+        assertEquals("    30 UNLOCKED 20", lines[2]);
+        // Вывод не считается сбросом на диск
+        assertEquals(2, journal.getPendingCount());
+    }
+
+    @Test
+    public void recordDoesNotAllocate() {
+        final LockJournal journal = new LockJournal(LockJournal.DEFAULT_CAPACITY);
+        final LockJournal.Event[] events = LockJournal.Event.values();
+        final int[] next = new int[1];
+        long allocated = MicroBenchmark.allocatedBytes(() -> {
+            int i = next[0]++;
+            journal.record(events[i % events.length], i, i);
+        }, 20_000, 100_000);
+
+        // Буфер переполняется и перезаписывается без выделений
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    @Test
+    public void fileAppendsAndRotates() throws IOException {
+        File dir = Files.createTempDirectory("journal").toFile();
+        try {
+            // Строка события — около 20 байт, в файл помещается две
+            LockJournalFile file = new LockJournalFile(dir, 50, 0);
+            LockJournal journal = new LockJournal(16);
+            for (int i = 0; i < 5; i++) {
+                journal.record(LockJournal.Event.UNLOCKED, i * 1_000_000L, i);
+            }
+            journal.drainTo(file);
+            file.flush();
+            assertTrue(file.getRotationCount() >= 1);
+            assertTrue(new File(dir, LockJournalFile.ROTATED_FILE_NAME).length() <= 50);
+            assertTrue(new File(dir, LockJournalFile.FILE_NAME).length() <= 50);
+
+            StringWriter out = new StringWriter();
+            file.export(new PrintWriter(out, true));
+            String[] lines = out.toString().trim().split("\n");
+            // Самые старые строки ушли вместе с удалённой частью, порядок сохранён
+            assertEquals("4 4000000 UNLOCKED 4", lines[lines.length - 1]);
+            for (int i = 1; i < lines.length; i++) {
+                assertTrue(Long.parseLong(lines[i].split(" ")[1]) > Long.parseLong(lines[i - 1].split(" ")[1]));
+            }
+            file.close();
+
+            // Новый экземпляр дописывает существующий файл
+            LockJournalFile reopened = new LockJournalFile(dir, 1024, 0);
+            journal.record(LockJournal.Event.SERVICE_DESTROYED, 9_000_000L, 0);
+            journal.drainTo(reopened);
+            StringWriter again = new StringWriter();
+            reopened.export(new PrintWriter(again, true));
+            assertTrue(again.toString().startsWith(out.toString()));
+            assertTrue(again.toString().endsWith("9 9000000 SERVICE_DESTROYED 0\n"));
+
+            // Выгрузка в отдельный файл — то же содержимое
+            File exported = new File(dir, "export.log");
+            reopened.export(exported);
+            assertEquals(again.toString(), new String(Files.readAllBytes(exported.toPath()), "UTF-8"));
+            assertFalse(new File(dir, "export.log.tmp").exists());
+            reopened.close();
+        } finally {
+            for (File f : dir.listFiles()) f.delete();
+            dir.delete();
+        }
+    }
+}
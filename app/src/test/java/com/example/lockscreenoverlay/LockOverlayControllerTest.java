@@ -0,0 +1,181 @@
+package com.example.lockscreenoverlay;
+
+import android.content.Context;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowDisplayManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Сколько операций WindowManager выдаёт настоящий LockOverlayController за цикл блокировки
+ * на двух дисплеях (Robolectric; WindowManager каждого дисплея заменён счётчиками).
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class LockOverlayControllerTest {
+
+    // WindowManager одного дисплея: только счётчики операций
+    private static final class CountingOps implements OverlayScheduler.WindowOps<View> {
+        int adds, updates, removes;
+
+        @Override
+        public boolean add(View view) {
+            adds++;
+            return true;
+        }
+
+        @Override
+        public void update(View view) {
+            updates++;
+        }
+
+        @Override
+        public void remove(View view) {
+            removes++;
+        }
+    }
+
+    private final List<CountingOps> windowManagers = new ArrayList<>();
+    private Context context;
+    private OverlayDisplays displays;
+    private OverlayScheduler<View> scheduler;
+    private LockOverlayController controller;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        // Второй публичный дисплей, как у двухэкранного киоска
+        ShadowDisplayManager.addDisplay("w400dp-h800dp");
+        displays = new OverlayDisplays(context, new OverlayDisplays.OpsFactory() {
+            @Override
+            public OverlayScheduler.WindowOps<View> create(Context displayContext) {
+                CountingOps ops = new CountingOps();
+                windowManagers.add(ops);
+                return ops;
+            }
+        });
+        scheduler = displays.getScheduler();
+        controller = new LockOverlayController(context, displays);
+        controller.prepare();
+    }
+
+    @After
+    public void tearDown() {
+        controller.release();
+    }
+
+    private int total(int kind) {
+        int sum = 0;
+        for (CountingOps ops : windowManagers) {
+            sum += kind == 0 ? ops.adds : kind == 1 ? ops.updates : ops.removes;
+        }
+        return sum;
+    }
+
+    @Test
+    public void prepareAddsOneHiddenWindowPerDisplayInOnePass() {
+        assertEquals(2, windowManagers.size());
+        for (CountingOps ops : windowManagers) {
+            assertEquals(1, ops.adds);
+            assertEquals(0, ops.updates);
+        }
+        assertEquals(1, scheduler.getPassCount());
+    }
+
+    @Test
+    public void lockCycleIsOnePassPerTransitionWithOneUpdatePerDisplay() {
+        long passes = scheduler.getPassCount();
+        controller.show();
+        assertEquals(passes + 1, scheduler.getPassCount());
+        for (CountingOps ops : windowManagers) assertEquals(1, ops.updates);
+        controller.hide();
+        assertEquals(passes + 2, scheduler.getPassCount());
+        for (CountingOps ops : windowManagers) assertEquals(2, ops.updates);
+
+        // Ещё десять циклов: окна не добавляются и не удаляются, только два обновления на дисплей
+        for (int i = 0; i < 10; i++) {
+            controller.show();
+            controller.hide();
+        }
+        assertEquals(passes + 22, scheduler.getPassCount());
+        assertEquals(2, total(0));
+        assertEquals(22 * 2, total(1));
+        assertEquals(0, total(2));
+    }
+
+    @Test
+    public void transitionBatchesButtonRemovalWithLock() {
+        // Окно кнопки на основном дисплее, как у FloatButtonService
+        PooledWindow<View> button = new PooledWindow<>(new PooledWindow.Factory<View>() {
+            @Override
+            public View create() {
+                return new View(context);
+            }
+        }, scheduler, 0);
+        button.attach();
+        scheduler.flush();
+
+        OverlayStateMachine stateMachine = new OverlayStateMachine();
+        stateMachine.setDispatchBatch(new OverlayStateMachine.DispatchBatch() {
+            @Override
+            public void begin() {
+                scheduler.beginBatch();
+            }
+
+            @Override
+            public void end() {
+                scheduler.endBatch();
+            }
+        });
+        // Подписчики в порядке сервисов: кнопка скрывается, экран блокировки показывается
+        stateMachine.addListener(new OverlayStateMachine.Listener() {
+            @Override
+            public void onStateChanged(OverlayStateMachine.State from, OverlayStateMachine.State to) {
+                if (to == OverlayStateMachine.State.LOCKED) {
+                    button.detach();
+                    scheduler.flush();
+                } else {
+                    button.attach();
+                    scheduler.flush();
+                }
+            }
+        });
+        stateMachine.addListener(new OverlayStateMachine.Listener() {
+            @Override
+            public void onStateChanged(OverlayStateMachine.State from, OverlayStateMachine.State to) {
+                if (to == OverlayStateMachine.State.LOCKED) controller.show();
+                else controller.hide();
+            }
+        });
+
+        long passes = scheduler.getPassCount();
+        long ops = scheduler.getOpCount();
+        stateMachine.moveTo(OverlayStateMachine.State.LOCKED);
+        // Одно удаление кнопки и по обновлению на каждый из двух дисплеев — одним проходом
+        assertEquals(passes + 1, scheduler.getPassCount());
+        assertEquals(ops + 3, scheduler.getOpCount());
+        stateMachine.moveTo(OverlayStateMachine.State.UNLOCKED);
+        assertEquals(passes + 2, scheduler.getPassCount());
+        assertEquals(ops + 6, scheduler.getOpCount());
+    }
+
+    @Test
+    public void releaseRemovesEveryWindowInOnePass() {
+        long passes = scheduler.getPassCount();
+        controller.release();
+        assertEquals(passes + 1, scheduler.getPassCount());
+        for (CountingOps ops : windowManagers) assertEquals(1, ops.removes);
+        // Повторный release в tearDown ничего не делает
+    }
+}
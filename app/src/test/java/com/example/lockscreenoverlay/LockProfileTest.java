@@ -0,0 +1,190 @@
+package com.example.lockscreenoverlay;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Проверки разбора профилей блокировки и их подмены в LockProfileStore.
+ */
+public class LockProfileTest {
+
+    private static Properties properties(String text) throws IOException {
+        Properties properties = new Properties();
+        properties.load(new StringReader(text));
+        return properties;
+    }
+
+    // Источник в памяти: версия меняется при каждой правке текста
+    private static final class MemorySource implements LockProfileStore.Source {
+        String text;
+        long version = LockProfileStore.NO_SOURCE;
+        int reads = 0;
+
+        void set(String text) {
+            this.text = text;
+            version++;
+            if (version == LockProfileStore.NO_SOURCE) version++;
+        }
+
+        @Override
+        public long version() {
+            return version;
+        }
+
+        @Override
+        public Properties read() throws IOException {
+            reads++;
+            return properties(text);
+        }
+    }
+
+    // Очередь задач, выполняемых вручную: видно, что разбор и применение идут в разных исполнителях
+    private static final class QueueExecutor implements Executor {
+        final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) tasks.remove(0).run();
+        }
+    }
+
+    @Test
+    public void activeProfileOverridesDefaults() throws IOException {
+        LockProfile profile = LockProfile.fromProperties(properties(
+                "active=kiosk\n"
+                        + "kiosk.unlock_distance_dp=220\n"
+                        + "kiosk.scrim_color=#E0000000\n"
+                        + "kiosk.animation=false\n"
+                        + "kiosk.keep_screen_on_timeout_ms=-1\n"
+                        + "kiosk.unlock_method=swipe\n"
+                        + "kiosk.close_visible=false\n"
+                        + "kiosk.renderer=canvas\n"
+                        + "other.unlock_distance_dp=50\n"));
+        assertEquals("kiosk", profile.getName());
+        assertEquals(220f, profile.getUnlockDistanceDp(), 0f);
+        assertEquals(0xE0000000, profile.getScrimColor());
+        assertFalse(profile.isAnimationEnabled());
+        assertTrue(profile.hasKeepScreenOnTimeout());
+        assertEquals(LockPowerPolicy.KEEP_SCREEN_ON_ALWAYS, profile.getKeepScreenOnTimeoutMs());
+        assertEquals(LockProfile.UnlockMethod.SWIPE, profile.getUnlockMethod());
+        assertFalse(profile.isCloseVisible());
+        assertEquals(LockProfile.Renderer.CANVAS, profile.getRenderer());
+        // Не указанное — из профиля по умолчанию
+        assertEquals(LockProfile.DEFAULT.getMessageText(), profile.getMessageText());
+    }
+
+    @Test
+    public void emptyFileGivesDefaults() throws IOException {
+        LockProfile profile = LockProfile.fromProperties(properties(""));
+        assertEquals(LockProfile.DEFAULT_NAME, profile.getName());
+        assertEquals(SwipeUnlockEngine.UNLOCK_DISTANCE_DP, profile.getUnlockDistanceDp(), 0f);
+        assertEquals(0x80000000, profile.getScrimColor());
+        assertFalse(profile.hasKeepScreenOnTimeout());
+        assertEquals(LockProfile.Renderer.LAYOUT, profile.getRenderer());
+    }
+
+    @Test
+    public void parsesOpaqueColor() {
+        assertEquals(0xFF102030, LockProfile.parseColor("#102030"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBadValues() throws IOException {
+        LockProfile.fromProperties(properties("default.animation=maybe\n"));
+    }
+
+    @Test
+    public void storeParsesInBackgroundAndSwapsOnMain() {
+        MemorySource source = new MemorySource();
+        QueueExecutor io = new QueueExecutor();
+        QueueExecutor main = new QueueExecutor();
+        LockProfileStore store = new LockProfileStore(source, io, main);
+        final List<LockProfile> applied = new ArrayList<>();
+        store.addListener(applied::add);
+
+        source.set("default.unlock_distance_dp=200\n");
+        store.reload();
+        assertSame(LockProfile.DEFAULT, store.getProfile());
+        io.runAll();
+        // Разобрано, но ещё не применено: подмена только в главном потоке
+        assertSame(LockProfile.DEFAULT, store.getProfile());
+        assertTrue(applied.isEmpty());
+        main.runAll();
+        assertEquals(200f, store.getProfile().getUnlockDistanceDp(), 0f);
+        assertEquals(1, applied.size());
+        assertSame(store.getProfile(), applied.get(0));
+    }
+
+    @Test
+    public void unchangedSourceIsNotParsedAgain() {
+        MemorySource source = new MemorySource();
+        QueueExecutor io = new QueueExecutor();
+        QueueExecutor main = new QueueExecutor();
+        LockProfileStore store = new LockProfileStore(source, io, main);
+        source.set("default.animation=false\n");
+        store.reload();
+        io.runAll();
+        main.runAll();
+        // Перезапуск сервиса: профиль уже в памяти, файл не изменился
+        store.reload();
+        io.runAll();
+        main.runAll();
+        assertEquals(1, source.reads);
+        assertEquals(1, store.getSwapCount());
+    }
+
+    @Test
+    public void brokenEditKeepsPreviousProfile() {
+        MemorySource source = new MemorySource();
+        QueueExecutor io = new QueueExecutor();
+        QueueExecutor main = new QueueExecutor();
+        LockProfileStore store = new LockProfileStore(source, io, main);
+        source.set("default.unlock_distance_dp=180\n");
+        store.reload();
+        io.runAll();
+        main.runAll();
+        LockProfile good = store.getProfile();
+
+        source.set("default.unlock_distance_dp=-5\n");
+        store.reload();
+        io.runAll();
+        main.runAll();
+        assertSame(good, store.getProfile());
+
+        // Исправленный файл подхватывается следующей перезагрузкой
+        source.set("default.unlock_distance_dp=190\n");
+        store.reload();
+        io.runAll();
+        main.runAll();
+        assertEquals(190f, store.getProfile().getUnlockDistanceDp(), 0f);
+    }
+
+    @Test
+    public void removedSourceFallsBackToDefault() {
+        MemorySource source = new MemorySource();
+        QueueExecutor io = new QueueExecutor();
+        QueueExecutor main = new QueueExecutor();
+        LockProfileStore store = new LockProfileStore(source, io, main);
+        source.set("default.animation=false\n");
+        store.reload();
+        io.runAll();
+        main.runAll();
+        source.version = LockProfileStore.NO_SOURCE;
+        store.reload();
+        io.runAll();
+        main.runAll();
+        assertSame(LockProfile.DEFAULT, store.getProfile());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.lockscreenoverlay;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Простой замер на JVM без устройства: время и аллокации на событие для кода, который выполняется
+ * на главном потоке во время жеста. Не заменяет JMH, но достаточно, чтобы заметить регрессию
+ * на порядок (лишний объект на событие, лишний проход по массиву).
+ * Время зависит от машины, поэтому замеры не входят в обычный прогон тестов и включаются
+ * флагом сборки: ./gradlew :app:testDebugUnitTest -Pbenchmark
+ */
+final class MicroBenchmark {
+
+    // Одна итерация замера; возвращает количество обработанных событий
+    interface Body {
+        long run();
+    }
+
+    static final class Result {
+        final String name;
+        final long events;
+        final double nanosPerEvent;
+        final double bytesPerEvent;
+
+        Result(String name, long events, double nanosPerEvent, double bytesPerEvent) {
+            this.name = name;
+            this.events = events;
+            this.nanosPerEvent = nanosPerEvent;
+            this.bytesPerEvent = bytesPerEvent;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(java.util.Locale.ROOT, "%s: %d events, %.1f ns/event, %.4f bytes/event",
+                    name, events, nanosPerEvent, bytesPerEvent);
+        }
+    }
+
+    // Системное свойство, которое app/build.gradle выставляет по флагу -Pbenchmark
+    static final String ENABLED_PROPERTY = "lockoverlay.benchmark";
+
+    private static long sink;  // Не даёт JIT выбросить результат замеряемого кода
+
+    private MicroBenchmark() {
+    }
+
+    static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    // Байт, выделенных текущим потоком с его запуска
+    private static long threadAllocatedBytes() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // Сколько байт выделили iterations вызовов body после прогрева. В отличие от run() работает
+    // и без -Pbenchmark: проверки «без аллокаций» не зависят от скорости машины
+    static long allocatedBytes(Runnable body, int warmupIterations, int iterations) {
+        // Прогрев, чтобы JIT и загрузка классов не попали в замер
+        for (int i = 0; i < warmupIterations; i++) {
+            body.run();
+        }
+        long before = threadAllocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            body.run();
+        }
+        return threadAllocatedBytes() - before;
+    }
+
+    static Result run(String name, int warmupIterations, int iterations, Body body) {
+        // Прогрев, чтобы JIT и загрузка классов не попали в замер
+        for (int i = 0; i < warmupIterations; i++) {
+            sink += body.run();
+        }
+        long events = 0;
+        long bytesBefore = threadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            events += body.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threadAllocatedBytes() - bytesBefore;
+        sink += events;
+        Result result = new Result(name, events,
+                (double) elapsed / events, (double) allocated / events);
+        System.out.println(result);
+        return result;
+    }
+}
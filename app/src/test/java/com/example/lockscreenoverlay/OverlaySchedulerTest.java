@@ -0,0 +1,186 @@
+package com.example.lockscreenoverlay;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Проверки планировщика окон на нескольких дисплеях с поддельным WindowManager.
+ */
+public class OverlaySchedulerTest {
+
+    // Поддельный WindowManager одного дисплея: записывает каждую операцию
+    private static final class FakeWindowManager implements OverlayScheduler.WindowOps<String> {
+        final List<String> ops = new ArrayList<>();
+        boolean acceptAdds = true;  // false — как WindowManager без разрешения на оверлей
+
+        @Override
+        public boolean add(String view) {
+            ops.add("add " + view);
+            return acceptAdds;
+        }
+
+        @Override
+        public void update(String view) {
+            ops.add("update " + view);
+        }
+
+        @Override
+        public void remove(String view) {
+            ops.add("remove " + view);
+        }
+    }
+
+    private static final int DISPLAYS = 3;
+
+    private OverlayScheduler<String> scheduler;
+    private FakeWindowManager[] windowManagers;
+
+    @Before
+    public void setUp() {
+        scheduler = new OverlayScheduler<>();
+        windowManagers = new FakeWindowManager[DISPLAYS];
+        for (int i = 0; i < DISPLAYS; i++) {
+            windowManagers[i] = new FakeWindowManager();
+            scheduler.registerDisplay(i, windowManagers[i]);
+        }
+    }
+
+    private int totalOps() {
+        int total = 0;
+        for (FakeWindowManager wm : windowManagers) total += wm.ops.size();
+        return total;
+    }
+
+    @Test
+    public void lockCycleIsOnePassPerTransitionWithOneOpPerDisplay() {
+        for (int i = 0; i < DISPLAYS; i++) scheduler.scheduleAdd(i, "lock" + i);
+        scheduler.flush();
+        long passesBefore = scheduler.getPassCount();
+        int opsBefore = totalOps();
+
+        // Блокировка: параметры окон меняются несколько раз, в WindowManager уходит одно обновление на дисплей
+        for (int i = 0; i < DISPLAYS; i++) {
+            scheduler.scheduleUpdate(i, "lock" + i);
+            scheduler.scheduleUpdate(i, "lock" + i);
+        }
+        assertEquals(DISPLAYS, scheduler.flush());
+        // Разблокировка
+        for (int i = 0; i < DISPLAYS; i++) scheduler.scheduleUpdate(i, "lock" + i);
+        assertEquals(DISPLAYS, scheduler.flush());
+
+        assertEquals(2, scheduler.getPassCount() - passesBefore);
+        assertEquals(2 * DISPLAYS, totalOps() - opsBefore);
+        for (int i = 0; i < DISPLAYS; i++) {
+            assertEquals("update lock" + i, windowManagers[i].ops.get(1));
+        }
+    }
+
+    @Test
+    public void operationsGoToTheirOwnDisplay() {
+        scheduler.scheduleAdd(0, "lock0");
+        scheduler.scheduleAdd(2, "lock2");
+        scheduler.flush();
+        assertEquals(1, windowManagers[0].ops.size());
+        assertEquals(0, windowManagers[1].ops.size());
+        assertEquals("add lock2", windowManagers[2].ops.get(0));
+    }
+
+    @Test
+    public void addThenRemoveBeforeFlushDoesNothing() {
+        scheduler.scheduleAdd(0, "lock0");
+        scheduler.scheduleRemove(0, "lock0");
+        assertFalse(scheduler.hasPending());
+        assertEquals(0, scheduler.flush());
+        assertEquals(0, scheduler.getPassCount());
+    }
+
+    @Test
+    public void removeThenAddBecomesUpdate() {
+        scheduler.scheduleAdd(0, "lock0");
+        scheduler.flush();
+        scheduler.scheduleRemove(0, "lock0");
+        scheduler.scheduleAdd(0, "lock0");
+        scheduler.flush();
+        assertEquals("update lock0", windowManagers[0].ops.get(1));
+        assertEquals(2, windowManagers[0].ops.size());
+    }
+
+    @Test
+    public void updateThenRemoveOnlyRemoves() {
+        scheduler.scheduleUpdate(1, "lock1");
+        scheduler.scheduleRemove(1, "lock1");
+        scheduler.flush();
+        assertEquals(1, windowManagers[1].ops.size());
+        assertEquals("remove lock1", windowManagers[1].ops.get(0));
+    }
+
+    @Test
+    public void unregisteredDisplayDropsPendingOps() {
+        scheduler.scheduleUpdate(1, "lock1");
+        scheduler.scheduleUpdate(2, "lock2");
+        scheduler.unregisterDisplay(1);
+        assertFalse(scheduler.hasDisplay(1));
+        assertEquals(1, scheduler.flush());
+        assertEquals(0, windowManagers[1].ops.size());
+    }
+
+    @Test
+    public void flushesInsideBatchRunAsOnePass() {
+        for (int i = 0; i < DISPLAYS; i++) scheduler.scheduleAdd(i, "lock" + i);
+        scheduler.scheduleAdd(0, "button0");
+        scheduler.flush();
+        long passesBefore = scheduler.getPassCount();
+
+        scheduler.beginBatch();
+        // Кнопка скрывается своим владельцем...
+        scheduler.scheduleRemove(0, "button0");
+        assertEquals(0, scheduler.flush());
+        // ...экран блокировки показывается своим
+        for (int i = 0; i < DISPLAYS; i++) scheduler.scheduleUpdate(i, "lock" + i);
+        assertEquals(0, scheduler.flush());
+        assertEquals(passesBefore, scheduler.getPassCount());
+        scheduler.endBatch();
+
+        assertEquals(passesBefore + 1, scheduler.getPassCount());
+        assertFalse(scheduler.hasPending());
+        assertEquals("remove button0", windowManagers[0].ops.get(2));
+    }
+
+    @Test
+    public void addResultIsReportedInThePass() {
+        final List<String> results = new ArrayList<>();
+        OverlayScheduler.AddListener<String> listener = new OverlayScheduler.AddListener<String>() {
+            @Override
+            public void onAddResult(String view, boolean added) {
+                results.add(view + "=" + added);
+            }
+        };
+        windowManagers[1].acceptAdds = false;
+        scheduler.scheduleAdd(0, "button0", listener);
+        scheduler.scheduleAdd(1, "button1", listener);
+        // До прохода итога нет
+        assertTrue(results.isEmpty());
+        scheduler.flush();
+        assertEquals("button0=true", results.get(0));
+        assertEquals("button1=false", results.get(1));
+
+        // Удаление и повторное добавление до прохода — обновление; окно не покидало WindowManager
+        results.clear();
+        scheduler.scheduleRemove(0, "button0");
+        scheduler.scheduleAdd(0, "button0", listener);
+        scheduler.flush();
+        assertEquals("update button0", windowManagers[0].ops.get(1));
+        assertEquals("button0=true", results.get(0));
+
+        // Дисплей отключён до прохода — окна не будет
+        results.clear();
+        scheduler.scheduleAdd(2, "button2", listener);
+        scheduler.unregisterDisplay(2);
+        assertEquals("button2=false", results.get(0));
+    }
+}
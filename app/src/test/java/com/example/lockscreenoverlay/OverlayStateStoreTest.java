@@ -0,0 +1,95 @@
+package com.example.lockscreenoverlay;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Проверки хранилища последнего состояния: блокировки и разблокировки не пишут на диск
+ * из вызывающего потока и объединяются в одну запись.
+ */
+public class OverlayStateStoreTest {
+
+    // Хранилище, запоминающее, из каких потоков к нему обращались
+    private static class RecordingBackend implements OverlayStateStore.Backend {
+        volatile OverlayStateMachine.State state = OverlayStateMachine.State.LOCKED;
+        volatile boolean foreground = false;
+        volatile Thread readThread;
+        volatile Thread writeThread;
+        volatile int writes = 0;
+
+        @Override
+        public OverlayStateMachine.State readLastState() {
+            readThread = Thread.currentThread();
+            return state;
+        }
+
+        @Override
+        public boolean readForegroundMode() {
+            return foreground;
+        }
+
+        @Override
+        public void write(OverlayStateMachine.State lastState, boolean foregroundMode) {
+            writeThread = Thread.currentThread();
+            writes++;
+            state = lastState;
+            foreground = foregroundMode;
+        }
+    }
+
+    @Test
+    public void lockCyclesAreWrittenOnceInBackground() throws Exception {
+        RecordingBackend backend = new RecordingBackend();
+        ScheduledExecutorService io = Executors.newSingleThreadScheduledExecutor();
+        OverlayStateStore store = new OverlayStateStore(backend, io, Runnable::run);
+
+        final OverlayStateMachine.State[] loadedState = new OverlayStateMachine.State[1];
+        final CountDownLatch loaded = new CountDownLatch(1);
+        store.load((state, foreground) -> {
+            loadedState[0] = state;
+            loaded.countDown();
+        });
+        assertTrue(loaded.await(5, TimeUnit.SECONDS));
+        assertEquals(OverlayStateMachine.State.LOCKED, loadedState[0]);
+        assertFalse(store.isForegroundMode());
+
+        Thread uiThread = Thread.currentThread();
+        for (int i = 0; i < 50; i++) {
+            store.setLastState(OverlayStateMachine.State.UNLOCKED);
+            store.setLastState(OverlayStateMachine.State.LOCKED);
+        }
+        store.setLastState(OverlayStateMachine.State.UNLOCKED);
+        store.close();
+        assertTrue(io.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertFalse(backend.readThread == uiThread);
+        assertFalse(backend.writeThread == uiThread);
+        assertEquals(1, backend.writes);
+        assertEquals(OverlayStateMachine.State.UNLOCKED, backend.state);
+        // Режим уведомления не менялся и записан как был
+        assertFalse(backend.foreground);
+    }
+
+    @Test
+    public void valuesSetBeforeLoadWin() throws Exception {
+        RecordingBackend backend = new RecordingBackend();
+        ScheduledExecutorService io = Executors.newSingleThreadScheduledExecutor();
+        OverlayStateStore store = new OverlayStateStore(backend, io, Runnable::run);
+        final CountDownLatch loaded = new CountDownLatch(1);
+        store.load((state, foreground) -> loaded.countDown());
+        // Совпадает со значением по умолчанию, но на диске другое — всё равно записывается
+        store.setLastState(OverlayStateMachine.State.UNLOCKED);
+        assertTrue(loaded.await(5, TimeUnit.SECONDS));
+        assertEquals(OverlayStateMachine.State.UNLOCKED, store.getLastState());
+
+        store.close();
+        assertTrue(io.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(OverlayStateMachine.State.UNLOCKED, backend.state);
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.lockscreenoverlay;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Проверки окна, которое создаётся один раз и переиспользуется между показами.
+ */
+public class PooledWindowTest {
+
+    // WindowManager без выделений: только счётчики операций и признак «окно добавлено»
+    private static final class CountingOps implements OverlayScheduler.WindowOps<Object> {
+        int adds, removes;
+        Object added;
+        boolean accept = true;  // false — WindowManager отказывает в добавлении
+
+        @Override
+        public boolean add(Object view) {
+            adds++;
+            if (!accept) return false;
+            added = view;
+            return true;
+        }
+
+        @Override
+        public void update(Object view) {
+        }
+
+        @Override
+        public void remove(Object view) {
+            removes++;
+            added = null;
+        }
+    }
+
+    private static final class CountingFactory implements PooledWindow.Factory<Object> {
+        int created;
+
+        @Override
+        public Object create() {
+            created++;
+            return new Object();
+        }
+    }
+
+    private static final int DISPLAY = 0;
+
+    private final CountingOps ops = new CountingOps();
+    private final OverlayScheduler<Object> scheduler = new OverlayScheduler<>();
+
+    @Before
+    public void setUp() {
+        scheduler.registerDisplay(DISPLAY, ops);
+    }
+
+    private PooledWindow<Object> newWindow(PooledWindow.Factory<Object> factory) {
+        return new PooledWindow<>(factory, scheduler, DISPLAY);
+    }
+
+    // Показ и скрытие, как в FloatButtonService: операция окна и проход планировщика
+    private boolean show(PooledWindow<Object> window) {
+        boolean attached = window.attach();
+        scheduler.flush();
+        return attached;
+    }
+
+    private boolean hide(PooledWindow<Object> window) {
+        boolean detached = window.detach();
+        scheduler.flush();
+        return detached;
+    }
+
+    @Test
+    public void viewIsCreatedOnceAcrossShowHideCycles() {
+        CountingFactory factory = new CountingFactory();
+        PooledWindow<Object> window = newWindow(factory);
+        Object view = window.get();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(show(window));
+            assertSame(view, ops.added);
+            assertTrue(hide(window));
+        }
+        assertEquals(1, factory.created);
+        assertEquals(1, window.getCreateCount());
+        assertEquals(5, window.getAttachCount());
+        assertEquals(5, window.getDetachCount());
+        assertEquals(5, ops.adds);
+        assertEquals(5, ops.removes);
+    }
+
+    @Test
+    public void repeatedAttachAndDetachAreIgnored() {
+        PooledWindow<Object> window = newWindow(new CountingFactory());
+        assertFalse(hide(window));
+        assertTrue(show(window));
+        assertFalse(show(window));
+        assertTrue(window.isAttached());
+        assertEquals(1, ops.adds);
+        assertTrue(hide(window));
+        assertFalse(hide(window));
+        assertEquals(1, ops.removes);
+    }
+
+    @Test
+    public void attachListenerFollowsWindow() {
+        final int[] calls = new int[2];
+        PooledWindow<Object> window = newWindow(new CountingFactory());
+        window.setAttachListener(new PooledWindow.AttachListener<Object>() {
+            @Override
+            public void onAttached(Object view) {
+                calls[0]++;
+            }
+
+            @Override
+            public void onDetached(Object view) {
+                calls[1]++;
+            }
+        });
+        show(window);
+        hide(window);
+        show(window);
+        assertEquals(2, calls[0]);
+        assertEquals(1, calls[1]);
+    }
+
+    @Test
+    public void windowIsAttachedOnlyAfterWindowManagerAcceptsIt() {
+        final int[] attachedCalls = new int[1];
+        PooledWindow<Object> window = newWindow(new CountingFactory());
+        window.setAttachListener(new PooledWindow.AttachListener<Object>() {
+            @Override
+            public void onAttached(Object view) {
+                attachedCalls[0]++;
+            }
+
+            @Override
+            public void onDetached(Object view) {
+            }
+        });
+        // Добавление запланировано, но прохода ещё не было
+        assertTrue(window.attach());
+        assertFalse(window.isAttached());
+        assertTrue(window.isAttachPending());
+        assertEquals(0, attachedCalls[0]);
+
+        // Нет разрешения на оверлей: окно не добавлено и удалять его нечего
+        ops.accept = false;
+        scheduler.flush();
+        assertFalse(window.isAttached());
+        assertFalse(window.isAttachPending());
+        assertEquals(0, window.getAttachCount());
+        assertEquals(1, window.getAttachFailCount());
+        assertEquals(0, attachedCalls[0]);
+        assertFalse(hide(window));
+        assertEquals(0, ops.removes);
+
+        // Разрешение выдано — следующий показ проходит
+        ops.accept = true;
+        assertTrue(show(window));
+        assertTrue(window.isAttached());
+        assertEquals(1, window.getAttachCount());
+        assertEquals(1, attachedCalls[0]);
+    }
+
+    @Test
+    public void detachBeforeThePassCancelsTheAdd() {
+        PooledWindow<Object> window = newWindow(new CountingFactory());
+        window.attach();
+        assertTrue(window.detach());
+        scheduler.flush();
+        assertFalse(window.isAttached());
+        assertFalse(window.isAttachPending());
+        assertEquals(0, ops.adds);
+        assertEquals(0, ops.removes);
+        assertEquals(0, window.getDetachCount());
+    }
+
+    @Test
+    public void releaseDropsTheViewAndDetaches() {
+        PooledWindow<Object> window = newWindow(new CountingFactory());
+        Object first = window.get();
+        show(window);
+        window.release();
+        scheduler.flush();
+        assertFalse(window.isAttached());
+        assertEquals(1, ops.removes);
+        assertNotSame(first, window.get());
+        assertEquals(2, window.getCreateCount());
+    }
+
+    @Test
+    public void showHideCyclesDoNotCreateOrAllocateAfterWarmup() {
+        // Цикл проходит и через очередь планировщика: её записи тоже переиспользуются
+        final PooledWindow<Object> window = newWindow(new CountingFactory());
+        long allocated = MicroBenchmark.allocatedBytes(() -> {
+            show(window);
+            hide(window);
+        }, 20_000, 100_000);
+
+        // Окно создаётся первым показом и дальше только переиспользуется
+        assertEquals(1, window.getCreateCount());
+        // Небольшой запас на сам вызов счётчика; выделение на каждом показе дало бы мегабайты
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+}
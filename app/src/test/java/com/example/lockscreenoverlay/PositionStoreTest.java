@@ -0,0 +1,101 @@
+package com.example.lockscreenoverlay;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Проверки хранилища позиций плавающей кнопки: диск трогается только из фонового потока,
+ * частые сохранения объединяются в одну запись.
+ */
+public class PositionStoreTest {
+
+    // Хранилище, запоминающее, из каких потоков к нему обращались
+    private static class RecordingBackend implements PositionStore.Backend {
+        final Map<String, Long> disk = new HashMap<>();
+        volatile Thread readThread;
+        volatile Thread writeThread;
+        volatile int writes = 0;
+
+        @Override
+        public synchronized Map<String, Long> readAll() {
+            readThread = Thread.currentThread();
+            return new HashMap<>(disk);
+        }
+
+        @Override
+        public synchronized void writeAll(Map<String, Long> positions) {
+            writeThread = Thread.currentThread();
+            writes++;
+            disk.putAll(positions);
+        }
+    }
+
+    @Test
+    public void showHideCyclesNeverTouchDiskOnCallerThread() throws Exception {
+        RecordingBackend backend = new RecordingBackend();
+        backend.disk.put("1:400x800", PositionStore.pack(10, 20));
+        ScheduledExecutorService io = Executors.newSingleThreadScheduledExecutor();
+        PositionStore store = new PositionStore(backend, io, Runnable::run);
+
+        final CountDownLatch loaded = new CountDownLatch(1);
+        store.load(loaded::countDown);
+        assertTrue(loaded.await(5, TimeUnit.SECONDS));
+
+        Thread uiThread = Thread.currentThread();
+        // Имитируем многократные показы/скрытия кнопки с перетаскиванием
+        for (int i = 0; i < 100; i++) {
+            long position = store.get("1:400x800", 0);
+            store.put("1:400x800", PositionStore.unpackX(position) + 1, PositionStore.unpackY(position));
+        }
+        assertEquals(110, PositionStore.unpackX(store.get("1:400x800", 0)));
+
+        store.close();
+        assertTrue(io.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertNotNull(backend.readThread);
+        assertNotNull(backend.writeThread);
+        assertFalse(backend.readThread == uiThread);
+        assertFalse(backend.writeThread == uiThread);
+        // Сто сохранений подряд записались одним обращением к диску
+        assertEquals(1, backend.writes);
+        assertEquals(PositionStore.pack(110, 20), (long) backend.disk.get("1:400x800"));
+    }
+
+    @Test
+    public void positionsAreKeptPerConfiguration() throws Exception {
+        RecordingBackend backend = new RecordingBackend();
+        backend.disk.put(PositionStore.LEGACY_KEY, PositionStore.pack(5, 6));
+        ScheduledExecutorService io = Executors.newSingleThreadScheduledExecutor();
+        PositionStore store = new PositionStore(backend, io, Runnable::run);
+        final CountDownLatch loaded = new CountDownLatch(1);
+        store.load(loaded::countDown);
+        assertTrue(loaded.await(5, TimeUnit.SECONDS));
+
+        String portrait = PositionStore.configKey(1, 400, 800);
+        String landscape = PositionStore.configKey(2, 800, 400);
+        // Без своей позиции используется позиция старой версии
+        assertEquals(PositionStore.pack(5, 6), store.get(portrait, 0));
+
+        store.put(portrait, 100, 200);
+        store.put(landscape, 300, 50);
+        assertEquals(PositionStore.pack(100, 200), store.get(portrait, 0));
+        assertEquals(PositionStore.pack(300, 50), store.get(landscape, 0));
+        store.close();
+        assertTrue(io.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void packKeepsNegativeCoordinates() {
+        long packed = PositionStore.pack(-15, -40);
+        assertEquals(-15, PositionStore.unpackX(packed));
+        assertEquals(-40, PositionStore.unpackY(packed));
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.lockscreenoverlay;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Проверки расчёта времени запуска до появления плавающей кнопки.
+ */
+public class StartupTimelineTest {
+
+    @Test
+    public void measuresFromLaunchWhenStartedFromLauncher() {
+        StartupTimeline timeline = new StartupTimeline();
+        timeline.mark(StartupTimeline.Milestone.PROCESS_START, 1000);
+        timeline.mark(StartupTimeline.Milestone.LAUNCH, 1150);
+        timeline.mark(StartupTimeline.Milestone.SERVICE_CREATED, 1180);
+        timeline.mark(StartupTimeline.Milestone.BUTTON_ATTACHED, 1210);
+        timeline.mark(StartupTimeline.Milestone.BUTTON_DRAWN, 1240);
+        assertEquals(90, timeline.launchToButtonVisibleMs());
+        assertEquals(240, timeline.durationMs(StartupTimeline.Milestone.PROCESS_START,
+                StartupTimeline.Milestone.BUTTON_DRAWN));
+    }
+
+    @Test
+    public void measuresFromProcessStartAfterSystemRestart() {
+        StartupTimeline timeline = new StartupTimeline();
+        timeline.mark(StartupTimeline.Milestone.PROCESS_START, 500);
+        timeline.mark(StartupTimeline.Milestone.BUTTON_DRAWN, 620);
+        assertEquals(120, timeline.launchToButtonVisibleMs());
+    }
+
+    @Test
+    public void firstMarkWins() {
+        StartupTimeline timeline = new StartupTimeline();
+        assertTrue(timeline.mark(StartupTimeline.Milestone.LAUNCH, 100));
+        assertFalse(timeline.mark(StartupTimeline.Milestone.LAUNCH, 300));
+        timeline.mark(StartupTimeline.Milestone.BUTTON_DRAWN, 150);
+        assertEquals(50, timeline.launchToButtonVisibleMs());
+    }
+
+    @Test
+    public void missingMilestoneGivesMinusOne() {
+        StartupTimeline timeline = new StartupTimeline();
+        timeline.mark(StartupTimeline.Milestone.LAUNCH, 100);
+        assertEquals(-1, timeline.launchToButtonVisibleMs());
+        assertTrue(timeline.report().contains("launch-to-button-visible=-1ms"));
+    }
+}
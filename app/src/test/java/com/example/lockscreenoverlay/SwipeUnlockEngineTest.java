@@ -0,0 +1,100 @@
+package com.example.lockscreenoverlay;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Проверки логики свайпа разблокировки, в том числе отсутствия аллокаций на ACTION_MOVE.
+ */
+public class SwipeUnlockEngineTest {
+    private static final float DENSITY = 3f;  // xxhdpi: порог 160 dp = 480 px
+
+    @Test
+    public void unlocksWhenDistanceReached() {
+        SwipeUnlockEngine engine = new SwipeUnlockEngine(DENSITY);
+        engine.setMaxOffset(900f);
+        engine.onDown(100f);
+        assertFalse(engine.onMove(400f));
+        assertEquals(300f, engine.getOffset(), 0.001f);
+        assertTrue(engine.onMove(600f));
+        assertFalse(engine.isDragging());
+    }
+
+    @Test
+    public void offsetIsClampedToTrack() {
+        SwipeUnlockEngine engine = new SwipeUnlockEngine(DENSITY);
+        engine.setMaxOffset(200f);
+        engine.onDown(100f);
+        engine.onMove(0f);
+        assertEquals(0f, engine.getOffset(), 0.001f);
+        engine.onMove(250f);
+        assertEquals(150f, engine.getOffset(), 0.001f);
+    }
+
+    @Test
+    public void shortTrackUnlocksAtItsEnd() {
+        SwipeUnlockEngine engine = new SwipeUnlockEngine(DENSITY);
+        engine.setMaxOffset(300f);
+        engine.onDown(0f);
+        assertTrue(engine.onMove(300f));
+    }
+
+    @Test
+    public void slowReleaseSnapsBack() {
+        SwipeUnlockEngine engine = new SwipeUnlockEngine(DENSITY);
+        engine.setMaxOffset(900f);
+        engine.onDown(0f);
+        engine.onMove(300f);
+        assertFalse(engine.onUp(500f));
+    }
+
+    @Test
+    public void fastFlingUnlocksBeforeThreshold() {
+        SwipeUnlockEngine engine = new SwipeUnlockEngine(DENSITY);
+        engine.setMaxOffset(900f);
+        engine.onDown(0f);
+        engine.onMove(200f);
+        assertTrue(engine.onUp(4000f));
+    }
+
+    @Test
+    public void flingTooEarlyDoesNotUnlock() {
+        SwipeUnlockEngine engine = new SwipeUnlockEngine(DENSITY);
+        engine.setMaxOffset(900f);
+        engine.onDown(0f);
+        engine.onMove(50f);
+        assertFalse(engine.onUp(4000f));
+    }
+
+    @Test
+    public void profileDisablesFling() {
+        SwipeUnlockEngine engine = new SwipeUnlockEngine(DENSITY);
+        engine.setMaxOffset(900f);
+        engine.configure(100f, false);  // 300 px, без броска
+        engine.onDown(0f);
+        engine.onMove(200f);
+        assertFalse(engine.onUp(4000f));
+        engine.onDown(0f);
+        assertTrue(engine.onMove(300f));
+    }
+
+    @Test
+    public void moveDoesNotAllocate() {
+        final SwipeUnlockEngine engine = new SwipeUnlockEngine(DENSITY);
+        engine.setMaxOffset(100_000f);
+        // Один жест из 100 000 движений после прогревочного
+        long allocated = MicroBenchmark.allocatedBytes(() -> runGesture(engine, 100_000), 1, 1);
+
+        // Небольшой запас на сам вызов счётчика; 100 000 событий с аллокацией дали бы мегабайты
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    private static void runGesture(SwipeUnlockEngine engine, int moves) {
+        engine.onDown(0f);
+        for (int i = 0; i < moves; i++) {
+            engine.onMove(i * 0.001f);
+        }
+        engine.onUp(0f);
+    }
+}
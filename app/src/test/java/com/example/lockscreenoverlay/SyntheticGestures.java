@@ -0,0 +1,97 @@
+package com.example.lockscreenoverlay;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Синтетические жесты для тестов воспроизведения: app/src/test/resources/gestures/*.gtr построены
+ * здесь через GestureRecorder, а не сняты на устройстве. Движение — равномерное или равноускоренное
+ * с шагом 8 мс (120 Гц), дрожание пальца задано таблицей. GestureTraceTest проверяет, что файлы
+ * совпадают с генератором байт в байт.
+ * Перегенерация: запустить main с каталогом app/src/test/resources/gestures.
+ * Настоящие записи снимаются на устройстве: dumpsys ... FloatButtonService trace start / trace stop.
+ */
+final class SyntheticGestures {
+    static final String[] NAMES = {"tap_with_jitter.gtr", "drag_slow.gtr", "drag_fling.gtr",
+            "swipe_unlock.gtr", "swipe_short.gtr", "swipe_fling.gtr"};
+
+    private static final float DENSITY = 3f;            // xxhdpi, как в GestureReplayTest
+    private static final long FRAME_MS = 8;
+    private static final int DOWN = 0, UP = 1, MOVE = 2; // MotionEvent.ACTION_*
+
+    // Смещения пальца при нажатии на месте, px: в пределах порога перетаскивания
+    private static final int[][] TAP_JITTER = {{-2, 2}, {1, 4}, {4, -2}, {4, -2}, {-3, -1}, {-4, 1},
+            {0, -2}, {2, 2}};
+
+    private SyntheticGestures() {
+    }
+
+    static byte[] build(String name) {
+        GestureRecorder recorder = new GestureRecorder();
+        recorder.start(DENSITY, 64);
+        switch (name) {
+            case "tap_with_jitter.gtr":
+                // Нажатие на месте с дрожанием и отпускание чуть в стороне
+                recorder.record(GestureTrace.TARGET_FLOAT_BUTTON, DOWN, 0, 540, 1200);
+                for (int i = 0; i < TAP_JITTER.length; i++) {
+                    recorder.record(GestureTrace.TARGET_FLOAT_BUTTON, MOVE, (i + 1) * FRAME_MS,
+                            540 + TAP_JITTER[i][0], 1200 + TAP_JITTER[i][1]);
+                }
+                recorder.record(GestureTrace.TARGET_FLOAT_BUTTON, UP, 9 * FRAME_MS, 541, 1199);
+                break;
+            case "drag_slow.gtr":
+                // 40 кадров по 1 px вправо и 0,25 px вниз, отпускание без скорости
+                recorder.record(GestureTrace.TARGET_FLOAT_BUTTON, DOWN, 0, 300, 600);
+                for (int i = 1; i <= 40; i++) {
+                    recorder.record(GestureTrace.TARGET_FLOAT_BUTTON, MOVE, i * FRAME_MS, 300 + i, 600 + i / 4f);
+                }
+                recorder.record(GestureTrace.TARGET_FLOAT_BUTTON, UP, 41 * FRAME_MS, 340, 610);
+                break;
+            case "drag_fling.gtr":
+                // Разгон: шаг растёт на 4 px за кадр, отпускание на скорости
+                recorder.record(GestureTrace.TARGET_FLOAT_BUTTON, DOWN, 0, 200, 800);
+                for (int i = 1; i <= 12; i++) {
+                    recorder.record(GestureTrace.TARGET_FLOAT_BUTTON, MOVE, i * FRAME_MS, 200 + 2 * i * (i + 1), 800 + i);
+                }
+                recorder.record(GestureTrace.TARGET_FLOAT_BUTTON, UP, 13 * FRAME_MS, 560, 812);
+                break;
+            case "swipe_unlock.gtr":
+                // 600 px по зоне свайпа за 400 мс с вертикальным дрожанием
+                recorder.record(GestureTrace.TARGET_LOCK_SWIPE, DOWN, 0, 130, 150);
+                for (int i = 1; i <= 50; i++) {
+                    recorder.record(GestureTrace.TARGET_LOCK_SWIPE, MOVE, i * FRAME_MS, 130 + 12 * i, 150 + i % 3);
+                }
+                recorder.record(GestureTrace.TARGET_LOCK_SWIPE, UP, 51 * FRAME_MS, 730, 150);
+                break;
+            case "swipe_short.gtr":
+                // 250 px медленно: меньше порога разблокировки, остановка перед отпусканием
+                recorder.record(GestureTrace.TARGET_LOCK_SWIPE, DOWN, 0, 130, 150);
+                for (int i = 1; i <= 50; i++) {
+                    recorder.record(GestureTrace.TARGET_LOCK_SWIPE, MOVE, i * FRAME_MS, 130 + 5 * i, 150);
+                }
+                recorder.record(GestureTrace.TARGET_LOCK_SWIPE, UP, 51 * FRAME_MS, 380, 150);
+                break;
+            case "swipe_fling.gtr":
+                // Короткий бросок: 270 px за 72 мс
+                recorder.record(GestureTrace.TARGET_LOCK_SWIPE, DOWN, 0, 130, 150);
+                for (int i = 1; i <= 8; i++) {
+                    recorder.record(GestureTrace.TARGET_LOCK_SWIPE, MOVE, i * FRAME_MS, 130 + 30 * i, 150);
+                }
+                recorder.record(GestureTrace.TARGET_LOCK_SWIPE, UP, 9 * FRAME_MS, 400, 150);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown gesture " + name);
+        }
+        return recorder.stop();
+    }
+
+    public static void main(String[] args) throws IOException {
+        File dir = new File(args.length > 0 ? args[0] : "app/src/test/resources/gestures");
+        for (String name : NAMES) {
+            try (FileOutputStream out = new FileOutputStream(new File(dir, name))) {
+                out.write(build(name));
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.lockscreenoverlay;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Проверки разделения нажатия и перетаскивания плавающей кнопки.
+ */
+public class TapDragClassifierTest {
+
+    @Test
+    public void movementWithinSlopIsATap() {
+        TapDragClassifier classifier = new TapDragClassifier();
+        classifier.onDown(100f, 100f);
+        assertFalse(classifier.onMove(105f, 95f));
+        assertTrue(classifier.onUp());
+    }
+
+    @Test
+    public void movementBeyondSlopIsADrag() {
+        TapDragClassifier classifier = new TapDragClassifier();
+        classifier.onDown(100f, 100f);
+        assertTrue(classifier.onMove(100f, 106f));
+        assertEquals(0, classifier.getDeltaX());
+        assertEquals(6, classifier.getDeltaY());
+        assertFalse(classifier.onUp());
+    }
+
+    @Test
+    public void returningToStartIsStillADrag() {
+        TapDragClassifier classifier = new TapDragClassifier();
+        classifier.onDown(100f, 100f);
+        classifier.onMove(200f, 100f);
+        assertTrue(classifier.onMove(101f, 100f));
+        assertFalse(classifier.onUp());
+    }
+
+    @Test
+    public void deltaFollowsFingerEvenWithinSlop() {
+        TapDragClassifier classifier = new TapDragClassifier();
+        classifier.onDown(10.5f, 10.5f);
+        classifier.onMove(13.9f, 8f);
+        assertEquals(3, classifier.getDeltaX());
+        assertEquals(-2, classifier.getDeltaY());
+    }
+
+    @Test
+    public void upWithoutDownIsNotATap() {
+        TapDragClassifier classifier = new TapDragClassifier();
+        assertFalse(classifier.onUp());
+        classifier.onDown(0f, 0f);
+        classifier.onCancel();
+        assertFalse(classifier.onUp());
+    }
+}
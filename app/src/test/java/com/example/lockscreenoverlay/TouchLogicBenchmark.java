@@ -0,0 +1,173 @@
+package com.example.lockscreenoverlay;
+
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Замер обработки касаний на синтетических жестах (app/src/test/resources/gestures, см. SyntheticGestures):
+ * события идут через настоящий FloatButtonTouchListener и SwipeUnlockEngine с VelocityTracker, как на экране
+ * блокировки. Результат (нс/событие, байт/событие) печатается в вывод теста; под Robolectric
+ * это время JVM и теневых классов, а не устройства, — годится для сравнения до/после изменения.
+ * Запуск: ./gradlew :app:testDebugUnitTest --tests '*TouchLogicBenchmark' -Pbenchmark -i
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class TouchLogicBenchmark {
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 2_000;
+
+    private final List<MotionEvent> obtained = new ArrayList<>();
+
+    private static final class CountingHost implements FloatButtonTouchListener.Host {
+        int x = 100, y = 300;
+        int taps, dragEnds;
+
+        @Override
+        public int getButtonX() {
+            return x;
+        }
+
+        @Override
+        public int getButtonY() {
+            return y;
+        }
+
+        @Override
+        public void onPress() {
+        }
+
+        @Override
+        public void onDrag(int x, int y, long eventTimeMillis, int samples) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public void onDragEnd(float velocityX, float velocityY) {
+            dragEnds++;
+        }
+
+        @Override
+        public void onTap(long eventTimeMillis) {
+            taps++;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("timing runs only with -Pbenchmark", MicroBenchmark.isEnabled());
+    }
+
+    @After
+    public void tearDown() {
+        for (MotionEvent event : obtained) event.recycle();
+        obtained.clear();
+    }
+
+    // События записи создаются до замера: в приложении их выдаёт система, а не обработчик
+    private MotionEvent[] events(String name) throws IOException {
+        GestureTrace trace = GestureTraceTest.load(name);
+        MotionEvent[] events = new MotionEvent[trace.size()];
+        long downTime = 0;
+        for (int i = 0; i < trace.size(); i++) {
+            long time = trace.getTimeMillis(i);
+            if (trace.getAction(i) == MotionEvent.ACTION_DOWN) downTime = time;
+            events[i] = MotionEvent.obtain(downTime, time, trace.getAction(i), trace.getX(i), trace.getY(i), 0);
+            obtained.add(events[i]);
+        }
+        return events;
+    }
+
+    // Запись — в координатах экрана, View получает их относительно текущего положения окна
+    private static long replayFloatButton(FloatButtonTouchListener listener, CountingHost host, MotionEvent[] events) {
+        for (MotionEvent event : events) {
+            int x = host.x, y = host.y;
+            event.offsetLocation(-x, -y);
+            listener.onTouch(null, event);
+            event.offsetLocation(x, y);
+        }
+        return events.length;
+    }
+
+    // Свайп так, как его обрабатывает экран блокировки: движок плюс VelocityTracker на отпускании
+    private static long replaySwipe(SwipeUnlockEngine engine, VelocityTracker tracker, MotionEvent[] events,
+                                    int[] unlocks) {
+        for (MotionEvent event : events) {
+            switch (event.getActionMasked()) {
+                case MotionEvent.ACTION_DOWN:
+                    tracker.clear();
+                    tracker.addMovement(event);
+                    engine.onDown(event.getX());
+                    break;
+                case MotionEvent.ACTION_MOVE:
+                    if (!engine.isDragging()) break;
+                    tracker.addMovement(event);
+                    if (engine.onMove(event.getX())) unlocks[0]++;
+                    break;
+                case MotionEvent.ACTION_UP:
+                    if (!engine.isDragging()) break;
+                    tracker.addMovement(event);
+                    tracker.computeCurrentVelocity(1000);
+                    if (engine.onUp(tracker.getXVelocity())) unlocks[0]++;
+                    break;
+            }
+        }
+        return events.length;
+    }
+
+    @Test
+    public void floatButtonTraces() throws IOException {
+        final MotionEvent[] tap = events("tap_with_jitter.gtr");
+        final MotionEvent[] slow = events("drag_slow.gtr");
+        final MotionEvent[] fling = events("drag_fling.gtr");
+        final CountingHost host = new CountingHost();
+        final FloatButtonTouchListener listener = new FloatButtonTouchListener(host);
+        try {
+            MicroBenchmark.run("float button touch", WARMUP, ITERATIONS, () ->
+                    replayFloatButton(listener, host, tap)
+                            + replayFloatButton(listener, host, slow)
+                            + replayFloatButton(listener, host, fling));
+        } finally {
+            listener.recycle();
+        }
+        // Одно нажатие и два перетаскивания на каждый проход
+        assertEquals(WARMUP + ITERATIONS, host.taps);
+        assertEquals(2 * (WARMUP + ITERATIONS), host.dragEnds);
+    }
+
+    @Test
+    public void swipeUnlockTraces() throws IOException {
+        GestureTrace unlockTrace = GestureTraceTest.load("swipe_unlock.gtr");
+        final MotionEvent[] unlock = events("swipe_unlock.gtr");
+        final MotionEvent[] shortSwipe = events("swipe_short.gtr");
+        final MotionEvent[] fling = events("swipe_fling.gtr");
+        final SwipeUnlockEngine engine = new SwipeUnlockEngine(unlockTrace.getDensity());
+        engine.setMaxOffset(SwipeUnlockEngine.UNLOCK_DISTANCE_DP * unlockTrace.getDensity() * 2f);
+        final VelocityTracker tracker = VelocityTracker.obtain();
+        final int[] unlocks = new int[1];
+        try {
+            MicroBenchmark.run("swipe unlock", WARMUP, ITERATIONS, () ->
+                    replaySwipe(engine, tracker, unlock, unlocks)
+                            + replaySwipe(engine, tracker, shortSwipe, unlocks)
+                            + replaySwipe(engine, tracker, fling, unlocks));
+        } finally {
+            tracker.recycle();
+        }
+        // Полный свайп и бросок разблокируют, короткий медленный — нет
+        assertEquals(2 * (WARMUP + ITERATIONS), unlocks[0]);
+    }
+}